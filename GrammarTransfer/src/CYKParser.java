@@ -0,0 +1,296 @@
+/**
+ * CYK分析器：文法需为乔姆斯基范式（先调用GrammarTransformer.toChomskyNormalForm）。
+ * 表格的每个单元是非终结符的位集合，另外按二元产生式A->BC编号，记录单元中的非终结符作为左部B出现的产生式集合
+ * 和作为右部C出现的产生式集合；合并两个单元只需把前者的左部集合与后者的右部集合按long逐字相与，
+ * 所有划分点的结果相或后再把命中的产生式映射为左部A。
+ * 左部集合按子串的起点存放、右部集合按子串的终点存放，依次处理各划分点时两边都是顺序访问内存。
+ * 同一条对角线（长度相同的子串）上的单元互不依赖，较长的句子在ForkJoin线程池中并行填写。
+ */
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+class CYKParser {
+    private static final int PARALLEL_THRESHOLD = 1 << 14; // 一条对角线的工作量（单元数×划分点数×位集合的long个数）超过该值时并行填写
+
+    // 分析树的结点：symbol推导出句子中的[start, end)，叶子结点的symbol为终结符
+    static final class Node {
+        public final int symbol;
+        public final int start;
+        public final int end;
+        public final Node left; // 叶子结点为null
+        public final Node right;
+
+        Node(int symbol, int start, int end, Node left, Node right) {
+            this.symbol = symbol;
+            this.start = start;
+            this.end = end;
+            this.left = left;
+            this.right = right;
+        }
+
+        // 括号形式，如S(A(a) B(b))
+        public String toString(SymbolTable symbols) {
+            StringBuilder builder = new StringBuilder();
+            append(builder, symbols);
+            return builder.toString();
+        }
+
+        private void append(StringBuilder builder, SymbolTable symbols) {
+            builder.append(symbols.name(symbol));
+            if (left != null) {
+                builder.append('(');
+                left.append(builder, symbols);
+                if (right != null) {
+                    builder.append(' ');
+                    right.append(builder, symbols);
+                }
+                builder.append(')');
+            }
+        }
+    }
+
+    // 填好的表格，单元(i, len)为从i开始、长度为len的子串
+    private final class Chart {
+        final int n;
+        final long[] cells; // 按cell编号，每个单元nonTerminalWords个long，为推出该子串的非终结符
+        final long[] asLeft; // 按cell编号，每个单元ruleWords个long，为左部B在该单元中的二元产生式
+        final long[] asRight; // 按endCell编号，每个单元ruleWords个long，为右部C在该单元中的二元产生式
+
+        Chart(int n) {
+            this.n = n;
+            int count = n * (n + 1) / 2;
+            cells = new long[count * nonTerminalWords];
+            asLeft = new long[count * ruleWords];
+            asRight = new long[count * ruleWords];
+        }
+
+        // 按起点存放：起点相同的单元按长度相邻
+        int cell(int i, int len) {
+            return i * n - i * (i - 1) / 2 + len - 1;
+        }
+
+        // 按终点存放：终点end（不含）相同的单元按长度相邻
+        int endCell(int end, int len) {
+            return end * (end - 1) / 2 + len - 1;
+        }
+
+        boolean contains(int cell, int nonTerminal) {
+            return (cells[cell * nonTerminalWords + (nonTerminal >>> 6)] & (1L << nonTerminal)) != 0;
+        }
+    }
+
+    private final SymbolTable symbols;
+    private final ForkJoinPool pool;
+    private final int[] node; // 非终结符编号0..m-1 -> 符号
+    private final int[] local; // 符号 -> 非终结符编号，不是非终结符时为-1
+    private final int start; // 开始符号的非终结符编号
+    private final boolean acceptsEmpty; // 有S->ε
+    private final int nonTerminalWords; // 非终结符位集合的long个数
+    private final int ruleWords; // 二元产生式位集合的long个数
+    private final int[] ruleHead; // 二元产生式A->BC的A、B、C
+    private final int[] ruleLeft;
+    private final int[] ruleRight;
+    private final long[] leftRules; // 每个非终结符ruleWords个long：该非终结符作为B的二元产生式
+    private final long[] rightRules; // 每个非终结符ruleWords个long：该非终结符作为C的二元产生式
+    private final long[][] terminalCells; // 终结符 -> 推出它的非终结符的位集合，没有时为null
+
+    public CYKParser(GrammarTransformer grammar) {
+        this(grammar, ForkJoinPool.commonPool());
+    }
+
+    public CYKParser(GrammarTransformer grammar, ForkJoinPool pool) {
+        this.symbols = grammar.getSymbols();
+        this.pool = pool;
+        Production[] productions = grammar.getProductionSet().toArray(new Production[0]);
+        BitSet nodes = (BitSet) grammar.getNonTerminalSet().clone();
+        nodes.set(grammar.getStartSymbol());
+        for (Production production : productions) {
+            nodes.set(production.getLeft());
+        }
+        node = nodes.stream().toArray();
+        local = new int[symbols.size()];
+        Arrays.fill(local, -1);
+        for (int v = 0; v < node.length; v++) {
+            local[node[v]] = v;
+        }
+        start = local[grammar.getStartSymbol()];
+        nonTerminalWords = (node.length + 63) >>> 6;
+        // 检查产生式的形式并给二元产生式编号
+        int rules = 0;
+        boolean empty = false;
+        for (Production production : productions) {
+            int[] right = production.getRight();
+            if (right.length == 2 && symbols.isNonTerminal(right[0]) && symbols.isNonTerminal(right[1])) {
+                rules++;
+            } else if (right.length == 0 && production.getLeft() == grammar.getStartSymbol()) {
+                empty = true;
+            } else if (right.length != 1 || symbols.isNonTerminal(right[0])) {
+                throw new IllegalArgumentException("产生式" + production.toString(symbols) + "不是乔姆斯基范式");
+            }
+        }
+        acceptsEmpty = empty;
+        ruleWords = (rules + 63) >>> 6;
+        ruleHead = new int[rules];
+        ruleLeft = new int[rules];
+        ruleRight = new int[rules];
+        leftRules = new long[node.length * ruleWords];
+        rightRules = new long[node.length * ruleWords];
+        terminalCells = new long[symbols.size()][];
+        int rule = 0;
+        for (Production production : productions) {
+            int head = local[production.getLeft()];
+            int[] right = production.getRight();
+            if (right.length == 2) {
+                ruleHead[rule] = head;
+                ruleLeft[rule] = local[right[0]];
+                ruleRight[rule] = local[right[1]];
+                leftRules[ruleLeft[rule] * ruleWords + (rule >>> 6)] |= 1L << rule;
+                rightRules[ruleRight[rule] * ruleWords + (rule >>> 6)] |= 1L << rule;
+                rule++;
+            } else if (right.length == 1) {
+                if (terminalCells[right[0]] == null) {
+                    terminalCells[right[0]] = new long[nonTerminalWords];
+                }
+                terminalCells[right[0]][head >>> 6] |= 1L << head;
+            }
+        }
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    // 句子是否属于文法的语言
+    public boolean recognize(int[] tokens) {
+        if (tokens.length == 0) {
+            return acceptsEmpty;
+        }
+        Chart chart = fill(tokens, true);
+        return chart != null && chart.contains(chart.cell(0, tokens.length), start);
+    }
+
+    // 判断多个句子，句子之间在线程池中并行，每个句子串行填写表格
+    public boolean[] recognizeAll(List<int[]> sentences) {
+        boolean[] result = new boolean[sentences.size()];
+        pool.submit(() -> IntStream.range(0, result.length).parallel().forEach(k -> {
+            int[] tokens = sentences.get(k);
+            if (tokens.length == 0) {
+                result[k] = acceptsEmpty;
+            } else {
+                Chart chart = fill(tokens, false);
+                result[k] = chart != null && chart.contains(chart.cell(0, tokens.length), start);
+            }
+        })).join();
+        return result;
+    }
+
+    // 句子的一棵分析树，不属于语言时返回null；空句子的分析树只有开始符号一个结点
+    public Node parse(int[] tokens) {
+        if (tokens.length == 0) {
+            return acceptsEmpty ? new Node(node[start], 0, 0, null, null) : null;
+        }
+        Chart chart = fill(tokens, true);
+        if (chart == null || !chart.contains(chart.cell(0, tokens.length), start)) {
+            return null;
+        }
+        return tree(chart, tokens, start, 0, tokens.length);
+    }
+
+    // 填写表格，有不是终结符或没有非终结符能推出的记号时返回null
+    private Chart fill(int[] tokens, boolean parallel) {
+        int n = tokens.length;
+        Chart chart = new Chart(n);
+        for (int i = 0; i < n; i++) {
+            int token = tokens[i];
+            if (token < 0 || token >= terminalCells.length || terminalCells[token] == null) {
+                return null;
+            }
+            System.arraycopy(terminalCells[token], 0, chart.cells, chart.cell(i, 1) * nonTerminalWords, nonTerminalWords);
+            mark(chart, i, 1);
+        }
+        for (int len = 2; len <= n; len++) {
+            int length = len;
+            int count = n - len + 1;
+            if (parallel && pool.getParallelism() > 1 && (long) count * (len - 1) * ruleWords > PARALLEL_THRESHOLD) {
+                pool.submit(() -> IntStream.range(0, count).parallel().forEach(i -> combine(chart, i, length))).join();
+            } else {
+                for (int i = 0; i < count; i++) {
+                    combine(chart, i, length);
+                }
+            }
+        }
+        return chart;
+    }
+
+    // 填写单元(i, len)：对每个划分点把左边单元的左部产生式集合与右边单元的右部产生式集合相与，命中的产生式的左部属于该单元
+    private void combine(Chart chart, int i, int len) {
+        long[] matched = new long[ruleWords];
+        long[] asLeft = chart.asLeft;
+        long[] asRight = chart.asRight;
+        // 划分点k：左边为(i, k)，右边为终点相同、长度为len - k的子串
+        int left = chart.cell(i, 1) * ruleWords;
+        int right = chart.endCell(i + len, len - 1) * ruleWords;
+        if (ruleWords == 1) {
+            // 二元产生式不超过64个时位集合只有一个long，单独处理省去内层循环
+            long bits = 0;
+            for (int k = 1; k < len; k++) {
+                bits |= asLeft[left++] & asRight[right--];
+            }
+            matched[0] = bits;
+        } else {
+            for (int k = 1; k < len; k++, left += ruleWords, right -= ruleWords) {
+                for (int w = 0; w < ruleWords; w++) {
+                    matched[w] |= asLeft[left + w] & asRight[right + w];
+                }
+            }
+        }
+        int base = chart.cell(i, len) * nonTerminalWords;
+        boolean empty = true;
+        for (int w = 0; w < ruleWords; w++) {
+            for (long bits = matched[w]; bits != 0; bits &= bits - 1) {
+                int head = ruleHead[(w << 6) + Long.numberOfTrailingZeros(bits)];
+                chart.cells[base + (head >>> 6)] |= 1L << head;
+                empty = false;
+            }
+        }
+        if (!empty) {
+            mark(chart, i, len);
+        }
+    }
+
+    // 由单元(i, len)中的非终结符求出它作为左边单元和右边单元时可用的二元产生式
+    private void mark(Chart chart, int i, int len) {
+        int base = chart.cell(i, len) * nonTerminalWords;
+        int leftBase = chart.cell(i, len) * ruleWords;
+        int rightBase = chart.endCell(i + len, len) * ruleWords;
+        for (int w = 0; w < nonTerminalWords; w++) {
+            for (long bits = chart.cells[base + w]; bits != 0; bits &= bits - 1) {
+                int nonTerminal = (w << 6) + Long.numberOfTrailingZeros(bits);
+                int row = nonTerminal * ruleWords;
+                for (int r = 0; r < ruleWords; r++) {
+                    chart.asLeft[leftBase + r] |= leftRules[row + r];
+                    chart.asRight[rightBase + r] |= rightRules[row + r];
+                }
+            }
+        }
+    }
+
+    // 从表格中取出nonTerminal推导[i, i + len)的一棵分析树，选第一个可用的划分点和产生式
+    private Node tree(Chart chart, int[] tokens, int nonTerminal, int i, int len) {
+        if (len == 1) {
+            return new Node(node[nonTerminal], i, i + 1, new Node(tokens[i], i, i + 1, null, null), null);
+        }
+        for (int k = 1; k < len; k++) {
+            int left = chart.cell(i, k);
+            int right = chart.cell(i + k, len - k);
+            for (int rule = 0; rule < ruleHead.length; rule++) {
+                if (ruleHead[rule] == nonTerminal && chart.contains(left, ruleLeft[rule]) && chart.contains(right, ruleRight[rule])) {
+                    return new Node(node[nonTerminal], i, i + len,
+                            tree(chart, tokens, ruleLeft[rule], i, k), tree(chart, tokens, ruleRight[rule], i + k, len - k));
+                }
+            }
+        }
+        throw new IllegalStateException("表格中没有" + symbols.name(node[nonTerminal]) + "的推导");
+    }
+}
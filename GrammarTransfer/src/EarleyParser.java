@@ -0,0 +1,583 @@
+/**
+ * Earley分析器：直接在GrammarTransformer的产生式集合上分析，不需要先转换为乔姆斯基范式，允许ε产生式、单产生式和左递归。
+ * 记号用feed逐个输入，每输入一个记号就知道当前前缀是否属于语言，不需要缓存整个输入。
+ * 项目(A->α•β, j)用点的位置slot和起点j两个int表示，所有项目集合的项目按顺序连续存放在基本类型数组中。
+ * 预测一个非终结符时一次加入预先求出的所有会被连带预测的产生式；点后的符号可空时直接越过它（Aycock-Horspool），
+ * 可空符号由GrammarTransformer.findNullableSymbols求出，所以起点为当前集合的完成项目不需要再做完成操作。
+ * 每个项目记录它的所有推导链接（点前移之前的项目和点越过的符号推导的子串起点），项目集合本身就是二叉化的共享分析森林，
+ * forest()从中取出推导整个输入的部分，结点和打包结点的个数最多与输入长度的三次方成正比。
+ */
+import java.util.*;
+
+class EarleyParser {
+    private static final int NO_LINK = -1; // 预测得到的项目没有推导链接
+
+    private final SymbolTable symbols;
+    private final int startSymbol;
+    private final Production[] productions;
+    private final boolean[] nullable; // 符号 -> 是否可空
+    private final boolean[] terminal; // 符号 -> 是否为终结符
+    private final int[] ruleSlot; // 产生式p的点在位置dot时slot为ruleSlot[p] + dot
+    private final int[] slotRule; // slot -> 产生式编号
+    private final int[] slotSymbol; // slot -> 点后的符号，点在末尾时为-1
+    private final int[] rulesStart; // 非终结符X的产生式编号为rules[rulesStart[X], rulesStart[X + 1])
+    private final int[] rules;
+    private final int[] predictStart; // 预测X时连带预测的非终结符（含X）为predicts[predictStart[X], predictStart[X + 1])
+    private final int[] predicts;
+
+    // 项目，第i个项目集合为[setStart[i], setStart[i + 1])，最后一个集合到itemCount为止
+    private int[] itemSlot = new int[64];
+    private int[] itemOrigin = new int[64];
+    private int[] itemLink = new int[64]; // 第一个推导链接，没有时为-1
+    private int itemCount;
+    private int[] setStart = new int[16];
+
+    // 推导链接：项目由项目linkLeft（点前移之前的项目，点原来在开头时为-1）越过一个符号得到，
+    // 该符号推导出的子串从集合linkOrigin开始、到项目所在的集合结束；同一项目的链接用linkNext串起来
+    private int[] linkLeft = new int[64];
+    private int[] linkOrigin = new int[64];
+    private int[] linkNext = new int[64];
+    private int linkCount;
+
+    // 每个已完成的集合中点后为符号X的项目，存为(X << 32) | 项目并按X排序，第i个集合为[waitingStart[i], waitingStart[i + 1])
+    private long[] waiting = new long[64];
+    private int[] waitingStart = new int[16];
+
+    // 当前集合的项目哈希表，键为(slot, 起点)，空位为-1
+    // 项目编号只增不减，编号小于setStart[position]的是之前集合的项目，也视为空位，开始新集合时不必清空
+    private int[] table = new int[64];
+    private int[] predicted; // 非终结符 -> 最后一次被预测的集合编号加1
+    private int position; // 已输入的记号个数，也是当前集合的编号
+    private boolean accepted; // 当前前缀是否属于语言
+    private boolean dead; // 当前前缀不是语言中任何句子的前缀，之后的记号都不再处理
+
+    public EarleyParser(GrammarTransformer grammar) {
+        symbols = grammar.getSymbols();
+        startSymbol = grammar.getStartSymbol();
+        productions = grammar.getProductionSet().toArray(new Production[0]);
+        int n = symbols.size();
+        nullable = new boolean[n];
+        BitSet nullableSymbols = grammar.findNullableSymbols();
+        for (int symbol = nullableSymbols.nextSetBit(0); symbol >= 0; symbol = nullableSymbols.nextSetBit(symbol + 1)) {
+            nullable[symbol] = true;
+        }
+        terminal = new boolean[n];
+        for (int symbol = 0; symbol < n; symbol++) {
+            terminal[symbol] = !symbols.isNonTerminal(symbol);
+        }
+        // 给点的位置编号
+        ruleSlot = new int[productions.length];
+        int slots = 0;
+        for (int p = 0; p < productions.length; p++) {
+            ruleSlot[p] = slots;
+            slots += productions[p].length() + 1;
+        }
+        slotRule = new int[slots];
+        slotSymbol = new int[slots];
+        rulesStart = new int[n + 1];
+        for (int p = 0; p < productions.length; p++) {
+            int[] right = productions[p].getRight();
+            for (int dot = 0; dot <= right.length; dot++) {
+                slotRule[ruleSlot[p] + dot] = p;
+                slotSymbol[ruleSlot[p] + dot] = dot < right.length ? right[dot] : -1;
+            }
+            rulesStart[productions[p].getLeft() + 1]++;
+        }
+        for (int symbol = 0; symbol < n; symbol++) {
+            rulesStart[symbol + 1] += rulesStart[symbol];
+        }
+        rules = new int[productions.length];
+        int[] fill = Arrays.copyOf(rulesStart, n);
+        for (int p = 0; p < productions.length; p++) {
+            rules[fill[productions[p].getLeft()]++] = p;
+        }
+        // 预测X会连带预测X的产生式右部中第一个不可空符号及其之前的所有非终结符，求出它们的传递闭包
+        predictStart = new int[n + 1];
+        int[] closure = new int[n];
+        int[] seen = new int[n];
+        int size = 0;
+        int[] result = new int[16];
+        for (int symbol = 0; symbol < n; symbol++) {
+            predictStart[symbol] = size;
+            if (terminal[symbol]) {
+                continue;
+            }
+            int count = 0;
+            seen[symbol] = symbol + 1;
+            closure[count++] = symbol;
+            for (int k = 0; k < count; k++) {
+                for (int r = rulesStart[closure[k]]; r < rulesStart[closure[k] + 1]; r++) {
+                    for (int next : productions[rules[r]].getRight()) {
+                        if (!terminal[next] && seen[next] != symbol + 1) {
+                            seen[next] = symbol + 1;
+                            closure[count++] = next;
+                        }
+                        if (!nullable[next]) {
+                            break;
+                        }
+                    }
+                }
+            }
+            if (size + count > result.length) {
+                result = Arrays.copyOf(result, Math.max(2 * result.length, size + count));
+            }
+            System.arraycopy(closure, 0, result, size, count);
+            size += count;
+        }
+        predictStart[n] = size;
+        predicts = Arrays.copyOf(result, size);
+        predicted = new int[n];
+        reset();
+    }
+
+    // 清空输入，回到空前缀
+    public void reset() {
+        itemCount = 0;
+        linkCount = 0;
+        position = 0;
+        dead = false;
+        Arrays.fill(predicted, 0);
+        Arrays.fill(table, -1); // 项目编号从0重新开始，旧项目不能再当作空位
+        startSet();
+        predict(startSymbol);
+        process();
+    }
+
+    // 输入下一个记号（终结符的编号），返回加上它之后的前缀是否属于语言
+    public boolean feed(int token) {
+        if (dead) {
+            position++;
+            return false;
+        }
+        int previous = position;
+        position++;
+        startSet();
+        if (token >= 0 && token < terminal.length && terminal[token]) {
+            int end = waitingStart[previous + 1];
+            for (int k = find(previous, token); k < end && (int) (waiting[k] >>> 32) == token; k++) {
+                int item = (int) waiting[k];
+                add(itemSlot[item] + 1, itemOrigin[item], leftOf(item), previous);
+            }
+        }
+        if (itemCount == setStart[position]) {
+            dead = true;
+            return false;
+        }
+        process();
+        return accepted;
+    }
+
+    // 依次输入所有记号，返回整个输入是否属于语言
+    public boolean parse(int[] tokens) {
+        reset();
+        for (int token : tokens) {
+            if (dead) {
+                return false;
+            }
+            feed(token);
+        }
+        return accepts();
+    }
+
+    // 当前前缀是否属于语言
+    public boolean accepts() {
+        return !dead && accepted;
+    }
+
+    // 当前项目集合是否非空，即当前前缀是某个句型的前缀；文法没有无用符号时就是当前前缀还可能扩展为语言中的句子
+    public boolean isViable() {
+        return !dead;
+    }
+
+    // 已输入的记号个数
+    public int position() {
+        return position;
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    // 当前集合中的项目个数，可以用来观察分析的开销
+    public int setSize() {
+        return dead ? 0 : itemCount - setStart[position];
+    }
+
+    // 开始新的项目集合
+    private void startSet() {
+        if (position + 2 > setStart.length) {
+            setStart = Arrays.copyOf(setStart, 2 * (position + 2));
+            waitingStart = Arrays.copyOf(waitingStart, 2 * (position + 2));
+        }
+        setStart[position] = itemCount;
+        accepted = false;
+    }
+
+    // 处理当前集合中的所有项目（包括处理过程中新加入的），之后为下一个记号建立点后符号的索引
+    private void process() {
+        int set = position;
+        for (int item = setStart[set]; item < itemCount; item++) {
+            int slot = itemSlot[item];
+            int origin = itemOrigin[item];
+            int symbol = slotSymbol[slot];
+            if (symbol < 0) {
+                // 完成：起点集合中点后为左部的项目越过左部；起点为当前集合时左部可空，等待它的项目加入时已经越过了它
+                if (origin == set) {
+                    continue;
+                }
+                int left = productions[slotRule[slot]].getLeft();
+                int end = waitingStart[origin + 1];
+                for (int k = find(origin, left); k < end && (int) (waiting[k] >>> 32) == left; k++) {
+                    int waiter = (int) waiting[k];
+                    add(itemSlot[waiter] + 1, itemOrigin[waiter], leftOf(waiter), origin);
+                }
+            } else if (!terminal[symbol]) {
+                predict(symbol);
+                if (nullable[symbol]) {
+                    add(slot + 1, origin, leftOf(item), set);
+                }
+            }
+        }
+        // 点后符号的索引
+        int from = waitingStart[set];
+        int count = from;
+        for (int item = setStart[set]; item < itemCount; item++) {
+            int symbol = slotSymbol[itemSlot[item]];
+            if (symbol >= 0) {
+                if (count == waiting.length) {
+                    waiting = Arrays.copyOf(waiting, 2 * count);
+                }
+                waiting[count++] = ((long) symbol << 32) | item;
+            }
+        }
+        Arrays.sort(waiting, from, count);
+        waitingStart[set + 1] = count;
+    }
+
+    // 集合set的点后符号索引中第一个点后为symbol的位置
+    private int find(int set, int symbol) {
+        long key = (long) symbol << 32;
+        int low = waitingStart[set];
+        int high = waitingStart[set + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (waiting[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void predict(int symbol) {
+        int mark = position + 1;
+        if (predicted[symbol] == mark) {
+            return;
+        }
+        for (int k = predictStart[symbol]; k < predictStart[symbol + 1]; k++) {
+            int nonTerminal = predicts[k];
+            if (predicted[nonTerminal] == mark) {
+                continue;
+            }
+            predicted[nonTerminal] = mark;
+            for (int r = rulesStart[nonTerminal]; r < rulesStart[nonTerminal + 1]; r++) {
+                add(ruleSlot[rules[r]], position, NO_LINK, NO_LINK);
+            }
+        }
+    }
+
+    // 点前移之前的项目作为链接的左边，点原来在开头时没有左边
+    private int leftOf(int item) {
+        int slot = itemSlot[item];
+        return slot == ruleSlot[slotRule[slot]] ? -1 : item;
+    }
+
+    // 在当前集合中加入项目(slot, origin)，已存在时只加入新的推导链接
+    private void add(int slot, int origin, int left, int childOrigin) {
+        int mask = table.length - 1;
+        int first = setStart[position];
+        int h = hash(slot, origin) & mask;
+        while (table[h] >= first) {
+            int item = table[h];
+            if (itemSlot[item] == slot && itemOrigin[item] == origin) {
+                if (childOrigin != NO_LINK) {
+                    link(item, left, childOrigin);
+                }
+                return;
+            }
+            h = (h + 1) & mask;
+        }
+        if (itemCount == itemSlot.length) {
+            int capacity = 2 * itemCount;
+            itemSlot = Arrays.copyOf(itemSlot, capacity);
+            itemOrigin = Arrays.copyOf(itemOrigin, capacity);
+            itemLink = Arrays.copyOf(itemLink, capacity);
+        }
+        int item = itemCount++;
+        itemSlot[item] = slot;
+        itemOrigin[item] = origin;
+        itemLink[item] = -1;
+        table[h] = item;
+        if (childOrigin != NO_LINK) {
+            link(item, left, childOrigin);
+        }
+        if (slotSymbol[slot] < 0 && origin == 0 && productions[slotRule[slot]].getLeft() == startSymbol) {
+            accepted = true;
+        }
+        if (2 * (itemCount - setStart[position]) > table.length) {
+            rehash();
+        }
+    }
+
+    private void link(int item, int left, int childOrigin) {
+        for (int l = itemLink[item]; l >= 0; l = linkNext[l]) {
+            if (linkLeft[l] == left && linkOrigin[l] == childOrigin) {
+                return;
+            }
+        }
+        if (linkCount == linkLeft.length) {
+            int capacity = 2 * linkCount;
+            linkLeft = Arrays.copyOf(linkLeft, capacity);
+            linkOrigin = Arrays.copyOf(linkOrigin, capacity);
+            linkNext = Arrays.copyOf(linkNext, capacity);
+        }
+        linkLeft[linkCount] = left;
+        linkOrigin[linkCount] = childOrigin;
+        linkNext[linkCount] = itemLink[item];
+        itemLink[item] = linkCount++;
+    }
+
+    private void rehash() {
+        table = new int[2 * table.length];
+        Arrays.fill(table, -1);
+        int mask = table.length - 1;
+        for (int item = setStart[position]; item < itemCount; item++) {
+            int h = hash(itemSlot[item], itemOrigin[item]) & mask;
+            while (table[h] >= 0) {
+                h = (h + 1) & mask;
+            }
+            table[h] = item;
+        }
+    }
+
+    private static int hash(int slot, int origin) {
+        int h = slot * 0x9E3779B9 + origin * 0x85EBCA6B;
+        return h ^ (h >>> 16);
+    }
+
+    // 当前前缀的共享分析森林，前缀不属于语言时返回null
+    public Forest forest() {
+        return accepts() ? new Forest() : null;
+    }
+
+    /**
+     * 共享分析森林（SPPF）：符号结点(X, i, j)表示X推导出记号[i, j)的所有方式，X为终结符时是叶子；
+     * 中间结点(A->α•β, i, j)对应一个项目，表示α推导出[i, j)的所有方式。
+     * 每种方式是一个打包结点，左孩子为中间结点（α只有一个符号时没有），右孩子为最后一个符号的符号结点；ε产生式的打包结点没有孩子。
+     */
+    final class Forest {
+        private final int end = position;
+        private final HashMap<Long, Integer> symbolNodes = new HashMap<>(); // (X, i, j) -> 结点
+        private final int[] itemNode = new int[itemCount]; // 项目 -> 中间结点，没有时为-1
+        private final int[] itemSet = new int[itemCount]; // 项目 -> 所在的集合
+        private final HashMap<Long, Integer> completed = new HashMap<>(); // (左部, 起点, 集合) -> 第一个完成项目
+        private final int[] completedNext = new int[itemCount]; // 同一(左部, 起点, 集合)的下一个完成项目
+        private int[] nodeLabel = new int[16]; // 符号结点为符号，中间结点为-1-项目
+        private int[] nodeStart = new int[16];
+        private int[] nodeEnd = new int[16];
+        private int[] packedFrom = new int[16]; // 结点的打包结点为[packedFrom, packedTo)
+        private int[] packedTo = new int[16];
+        private int nodeCount;
+        private int[] packedLeft = new int[16]; // 没有孩子时为-1
+        private int[] packedRight = new int[16];
+        private int packedCount;
+        private final int root;
+
+        private Forest() {
+            Arrays.fill(itemNode, -1);
+            for (int set = 0; set <= end; set++) {
+                int to = set < end ? setStart[set + 1] : itemCount;
+                for (int item = setStart[set]; item < to; item++) {
+                    itemSet[item] = set;
+                    int slot = itemSlot[item];
+                    if (slotSymbol[slot] < 0) {
+                        Integer first = completed.put(key(productions[slotRule[slot]].getLeft(), itemOrigin[item], set), item);
+                        completedNext[item] = first == null ? -1 : first;
+                    }
+                }
+            }
+            root = symbolNode(startSymbol, 0, end);
+            // 按结点编号的顺序展开，展开时新出现的结点排在后面
+            for (int node = 0; node < nodeCount; node++) {
+                packedFrom[node] = packedCount;
+                int label = nodeLabel[node];
+                if (label < 0) {
+                    expand(-1 - label, nodeEnd[node]);
+                } else if (!terminal[label]) {
+                    Integer item = completed.get(key(label, nodeStart[node], nodeEnd[node]));
+                    for (int c = item == null ? -1 : item; c >= 0; c = completedNext[c]) {
+                        if (itemLink[c] < 0) {
+                            packed(-1, -1); // ε产生式
+                        } else {
+                            expand(c, nodeEnd[node]);
+                        }
+                    }
+                }
+                packedTo[node] = packedCount;
+            }
+        }
+
+        // 项目的每个推导链接是一个打包结点
+        private void expand(int item, int set) {
+            int symbol = slotSymbol[itemSlot[item] - 1];
+            for (int l = itemLink[item]; l >= 0; l = linkNext[l]) {
+                int left = linkLeft[l] < 0 ? -1 : intermediateNode(linkLeft[l]);
+                packed(left, symbolNode(symbol, linkOrigin[l], set));
+            }
+        }
+
+        private long key(int symbol, int start, int end) {
+            return ((long) symbol * (this.end + 1) + start) * (this.end + 1) + end;
+        }
+
+        private int symbolNode(int symbol, int start, int end) {
+            Integer node = symbolNodes.get(key(symbol, start, end));
+            if (node == null) {
+                node = node(symbol, start, end);
+                symbolNodes.put(key(symbol, start, end), node);
+            }
+            return node;
+        }
+
+        private int intermediateNode(int item) {
+            if (itemNode[item] < 0) {
+                itemNode[item] = node(-1 - item, itemOrigin[item], itemSet[item]);
+            }
+            return itemNode[item];
+        }
+
+        private int node(int label, int start, int end) {
+            if (nodeCount == nodeLabel.length) {
+                int capacity = 2 * nodeCount;
+                nodeLabel = Arrays.copyOf(nodeLabel, capacity);
+                nodeStart = Arrays.copyOf(nodeStart, capacity);
+                nodeEnd = Arrays.copyOf(nodeEnd, capacity);
+                packedFrom = Arrays.copyOf(packedFrom, capacity);
+                packedTo = Arrays.copyOf(packedTo, capacity);
+            }
+            nodeLabel[nodeCount] = label;
+            nodeStart[nodeCount] = start;
+            nodeEnd[nodeCount] = end;
+            return nodeCount++;
+        }
+
+        private void packed(int left, int right) {
+            if (packedCount == packedLeft.length) {
+                packedLeft = Arrays.copyOf(packedLeft, 2 * packedCount);
+                packedRight = Arrays.copyOf(packedRight, 2 * packedCount);
+            }
+            packedLeft[packedCount] = left;
+            packedRight[packedCount] = right;
+            packedCount++;
+        }
+
+        // 根结点(开始符号, 0, 输入长度)
+        public int root() {
+            return root;
+        }
+
+        public int nodeCount() {
+            return nodeCount;
+        }
+
+        public int packedCount() {
+            return packedCount;
+        }
+
+        public boolean isIntermediate(int node) {
+            return nodeLabel[node] < 0;
+        }
+
+        // 符号结点的符号，中间结点为产生式的左部
+        public int symbol(int node) {
+            int label = nodeLabel[node];
+            return label >= 0 ? label : productions[slotRule[itemSlot[-1 - label]]].getLeft();
+        }
+
+        public int start(int node) {
+            return nodeStart[node];
+        }
+
+        public int end(int node) {
+            return nodeEnd[node];
+        }
+
+        // 结点的打包结点为[packedFrom(node), packedTo(node))
+        public int packedFrom(int node) {
+            return packedFrom[node];
+        }
+
+        public int packedTo(int node) {
+            return packedTo[node];
+        }
+
+        // 打包结点的左孩子，没有时为-1
+        public int left(int packed) {
+            return packedLeft[packed];
+        }
+
+        // 打包结点的右孩子，没有时为-1
+        public int right(int packed) {
+            return packedRight[packed];
+        }
+
+        // 是否有结点有多于一种推导方式
+        public boolean isAmbiguous() {
+            for (int node = 0; node < nodeCount; node++) {
+                if (packedTo[node] - packedFrom[node] > 1) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // 结点的名字，如(S, 0, 3)或(S->a•B, 0, 1)
+        public String label(int node) {
+            int label = nodeLabel[node];
+            String name;
+            if (label >= 0) {
+                name = symbols.name(label);
+            } else {
+                int slot = itemSlot[-1 - label];
+                Production production = productions[slotRule[slot]];
+                int dot = slot - ruleSlot[slotRule[slot]];
+                int[] right = production.getRight();
+                name = symbols.name(production.getLeft()) + "->" + Production.rightToString(symbols, Arrays.copyOf(right, dot))
+                        + "•" + (dot < right.length ? Production.rightToString(symbols, Arrays.copyOfRange(right, dot, right.length)) : "");
+            }
+            return "(" + name + ", " + nodeStart[node] + ", " + nodeEnd[node] + ")";
+        }
+
+        // 每行一个有孩子的结点及其所有打包结点
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (int node = 0; node < nodeCount; node++) {
+                if (packedTo[node] == packedFrom[node]) {
+                    continue;
+                }
+                builder.append(label(node)).append(" ->");
+                for (int p = packedFrom[node]; p < packedTo[node]; p++) {
+                    builder.append(p > packedFrom[node] ? " |" : "");
+                    if (packedLeft[p] >= 0) {
+                        builder.append(' ').append(label(packedLeft[p]));
+                    }
+                    builder.append(' ').append(packedRight[p] >= 0 ? label(packedRight[p]) : "ε");
+                }
+                builder.append('\n');
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * 文法变换的度量：每一遍变换的工作表出队次数、变换前后的产生式个数和耗时。
+ * 通过GrammarTransformer.setMetrics设置后收集；没有设置且JFR没有开启GrammarPass事件时不做任何计时。
+ */
+import jdk.jfr.*;
+
+import java.util.*;
+
+class GrammarMetrics {
+    // 一遍变换的度量
+    static class Pass {
+        public final String name; // 变换名
+        public final int worklistPops; // 工作表出队的次数，包括这一遍变换调用的其他变换，没有工作表的变换为0
+        public final int productionsBefore; // 变换前的产生式个数
+        public final int productionsAfter; // 变换后的产生式个数
+        public final long nanos; // 耗时
+
+        Pass(String name, int worklistPops, int productionsBefore, int productionsAfter, long nanos) {
+            this.name = name;
+            this.worklistPops = worklistPops;
+            this.productionsBefore = productionsBefore;
+            this.productionsAfter = productionsAfter;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString() {
+            return name + "：工作表出队" + worklistPops + "次，产生式" + productionsBefore + "->" + productionsAfter + "，耗时" + nanos / 1000 + "微秒";
+        }
+    }
+
+    private final List<Pass> passes = new ArrayList<>(); // 按执行顺序记录的各遍变换
+
+    // JFR是否开启了文法变换事件
+    static boolean eventsEnabled() {
+        return new GrammarPassEvent().isEnabled();
+    }
+
+    // 记录一遍变换并提交JFR事件，metrics为null时只提交JFR事件
+    static void record(GrammarMetrics metrics, String name, int worklistPops, int productionsBefore, int productionsAfter, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        if (metrics != null) {
+            metrics.passes.add(new Pass(name, worklistPops, productionsBefore, productionsAfter, nanos));
+        }
+        GrammarPassEvent event = new GrammarPassEvent();
+        if (event.isEnabled()) {
+            event.pass = name;
+            event.worklistPops = worklistPops;
+            event.productionsBefore = productionsBefore;
+            event.productionsAfter = productionsAfter;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    public List<Pass> getPasses() {
+        return passes;
+    }
+
+    public void print() {
+        for (Pass pass : passes) {
+            System.out.println(pass);
+        }
+    }
+}
+
+// 一遍文法变换
+@Name("grammar.GrammarPass")
+@Label("文法变换")
+@Category("GrammarTransfer")
+class GrammarPassEvent extends Event {
+    @Label("变换")
+    String pass;
+
+    @Label("工作表出队次数")
+    int worklistPops;
+
+    @Label("变换前的产生式个数")
+    int productionsBefore;
+
+    @Label("变换后的产生式个数")
+    int productionsAfter;
+
+    @Label("耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long nanos;
+}
@@ -5,370 +5,737 @@
  */
 import java.util.*;
 
-// 产生式类
+// 产生式类，符号用符号表中的编号表示，右部为空数组表示ε
 class Production {
-    private final Character left; // 左部
-    private final String right; // 右部
+    private final int left; // 左部
+    private final int[] right; // 右部
+    private final int hash;
 
     /**
      * 构造函数
      *
      * @param left  产生式的左部
-     * @param right 产生式的右部
+     * @param right 产生式的右部，构造后不应再修改
      */
-    public Production(Character left, String right) {
+    public Production(int left, int[] right) {
         this.left = left;
         this.right = right;
+        this.hash = 31 * left + Arrays.hashCode(right);
     }
 
-    public Character getLeft() {
+    public int getLeft() {
         return left;
     }
 
-    public String getRight() {
+    // 调用方不应修改返回的数组
+    public int[] getRight() {
         return right;
     }
 
+    // 右部的符号个数，ε为0
+    public int length() {
+        return right.length;
+    }
+
+    // 是否为单产生式A->B
+    public boolean isUnit(SymbolTable symbols) {
+        return right.length == 1 && symbols.isNonTerminal(right[0]);
+    }
+
+    public String toString(SymbolTable symbols) {
+        return symbols.name(left) + "->" + rightToString(symbols, right);
+    }
+
+    // 右部的字符串形式：ε、直接相连的单字符符号，或者含有多字符符号时用空格分隔
+    static String rightToString(SymbolTable symbols, int[] right) {
+        if (right.length == 0) {
+            return "ε";
+        }
+        String separator = "";
+        for (int symbol : right) {
+            if (symbols.name(symbol).length() != 1) {
+                separator = " ";
+                break;
+            }
+        }
+        StringJoiner joiner = new StringJoiner(separator);
+        for (int symbol : right) {
+            joiner.add(symbols.name(symbol));
+        }
+        return joiner.toString();
+    }
+
     @Override
     public String toString() {
-        return left + "->" + right;
+        return left + "->" + Arrays.toString(right);
     }
 
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof Production) {
             Production production = (Production) obj;
-            return left.equals(production.left) && right.equals(production.right);
+            return left == production.left && hash == production.hash && Arrays.equals(right, production.right);
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(left, right);
+        return hash;
     }
 }
 
 // 文法变换类
 class GrammarTransformer    {
-    private Set<Character> nonTerminalSet; // 非终结符集合
-    private Set<Character> terminalSet; // 终结符集合
+    // 消除ε产生式的方式
+    enum EpsilonMode {
+        EXPAND, // 教科书的做法：对每个右部中的可空符号枚举保留或删除的所有组合，n个可空符号产生2^n个产生式
+        BINARIZE, // 先用新的非终结符把含有多个可空符号的长右部拆成二元产生式再枚举，产生式个数与文法大小成线性关系
+        AUTO // 某个右部的可空符号超过EXPANSION_LIMIT个时用BINARIZE，否则用EXPAND
+    }
+
+    static final int EXPANSION_LIMIT = 8; // AUTO方式下直接枚举的右部最多含有的可空符号个数
+    private static final int MAX_EXPANDED = 30; // EXPAND方式下右部最多含有的可空符号个数，再多则枚举的组合数超出int
+
+    private final SymbolTable symbols; // 符号表
+    private BitSet nonTerminalSet; // 非终结符集合
+    private BitSet terminalSet; // 终结符集合
     private Set<Production> productionSet; // 产生式集合
-    private Character startSymbol; // 开始符号
-    private Set<Character> nullableSymbols; // 可空符号集合
+    private int startSymbol; // 开始符号
+    private BitSet nullableSymbols; // 可空符号集合
+    private GrammarMetrics metrics; // 度量，为null时不收集
+    private EpsilonMode epsilonMode = EpsilonMode.AUTO; // 消除ε产生式的方式
+    private int helperCount; // 二元化时已经生成的辅助非终结符个数
+    private int worklistPops; // 各变换的工作表累计出队的次数，每一遍变换记录开始前后的差
+
+    // 设置度量对象，之后的每一遍变换都会记录工作表出队次数、产生式个数和耗时
+    public void setMetrics(GrammarMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // 设置消除ε产生式的方式，默认为AUTO
+    public void setEpsilonMode(EpsilonMode epsilonMode) {
+        this.epsilonMode = epsilonMode;
+    }
+
+    // 是否需要记录度量
+    private boolean measuring() {
+        return metrics != null || GrammarMetrics.eventsEnabled();
+    }
 
     // 删除无用产生式
     public void removeUselessProductions(){
+        boolean measure = measuring();
+        long startNanos = measure ? System.nanoTime() : 0;
+        int before = productionSet.size();
         // 遍历产生式，假如左部或右部存在不在终结符集合和非终结符集合中的符号，则删除该产生式
-        Set<Production> newProductionSet = new HashSet<>();
+        Set<Production> newProductionSet = new LinkedHashSet<>();
         for (Production production : productionSet) {
             boolean flag = true;
-            for (char symbol : production.getRight().toCharArray()) {
-                if (!nonTerminalSet.contains(symbol) && !terminalSet.contains(symbol)) {
+            for (int symbol : production.getRight()) {
+                if (!nonTerminalSet.get(symbol) && !terminalSet.get(symbol)) {
                     flag = false;
                     break;
                 }
             }
             if (flag) {
-                if (nonTerminalSet.contains(production.getLeft())) {
+                if (nonTerminalSet.get(production.getLeft())) {
                     newProductionSet.add(production);
                 }
             }
         }
         productionSet = newProductionSet;
+        if (measure) {
+            GrammarMetrics.record(metrics, "removeUselessProductions", 0, before, productionSet.size(), startNanos);
+        }
     }
 
     // 消除epsilon产生式
     public void removeEpsilonProductions(){
         /*
-          找出能推出空串的非终结符集合N’：
-          (1)N0=空集
-          (2)N'={A|A->ε属于P}
-          (3)如果N'≠N0，转向(4)，否则结束
-          (4)N0=N'
-          (5)N’=N0∪{A|如果A->α且α属于(ε∪N0)*}，转向(3)
+          找出能推出空串的非终结符集合N’：N’是满足“A->α且α属于N’*”的最小集合，
+          即右部的符号都可空的产生式的左部可空，用derivable按工作表求出
          */
-        Set<Character> N0 = new HashSet<>();
-        Set<Character> N1 = new HashSet<>();
-        for (Production production : productionSet) {
-            if (production.getRight().equals("ε")) {
-                N1.add(production.getLeft());
+        boolean measure = measuring();
+        long startNanos = measure ? System.nanoTime() : 0;
+        int before = productionSet.size();
+        int pops = worklistPops;
+        nullableSymbols = findNullableSymbols();
+        if (nullableSymbols.isEmpty()) {
+            if (measure) {
+                GrammarMetrics.record(metrics, "removeEpsilonProductions", worklistPops - pops, before, before, startNanos);
             }
+            return;
         }
-        while (!N1.equals(N0)) {
-            N0 = N1;
-            for (Production production : productionSet) {
-                boolean flag = true;
-                for (char symbol : production.getRight().toCharArray()) {
-                    if (!N0.contains(symbol)) {
-                        flag = false;
-                        break;
-                    }
-                }
-                if (flag) {
-                    N1.add(production.getLeft());
-                }
-            }
+        int maxNullable = 0;
+        for (Production production : productionSet) {
+            maxNullable = Math.max(maxNullable, nullableCount(production));
         }
-        nullableSymbols = N1;
-        if (nullableSymbols.size() == 0) {
-            return;
+        if (epsilonMode == EpsilonMode.BINARIZE || (epsilonMode == EpsilonMode.AUTO && maxNullable > EXPANSION_LIMIT)) {
+            binarize();
+            // 辅助非终结符在它代表的后缀都可空时可空
+            nullableSymbols = findNullableSymbols();
+        } else if (maxNullable > MAX_EXPANDED) {
+            throw new IllegalStateException("产生式右部有" + maxNullable + "个可空符号，无法枚举所有组合，请使用EpsilonMode.BINARIZE");
         }
-        Set<Production> newProductionSet = new HashSet<>();
+        Set<Production> newProductionSet = new LinkedHashSet<>();
         /*
           如果生成式A->β0C1β1C2...Cnβn，n≥0，且每个Ck(1≤k≤n)均在N‘内，而对于βj(0≤j≤n),没有βj在N’内
           则P‘应加入A->β0Y1β1Y2...Ynβn，其中Yk是Ck或是ε，但A->ε不应加入P’
          */
         for (Production production : productionSet) {
-            if (production.getRight().equals("ε")) {
-                continue;
-            }
-            StringBuilder right = new StringBuilder();
-            for (char symbol : production.getRight().toCharArray()) {
-                if (nullableSymbols.contains(symbol)) {
-                    right.append(symbol);
-                }
-            }
-            int length = right.length();
+            int[] right = production.getRight();
+            int length = nullableCount(production);
             if (length == 0) {
                 continue;
             }
             // 根据length的长度，按照二进制的顺序生成所有可能的组合
-            // 遍历右部的每个字符，记录是第几个可空字符，按照二进制是0还是1，如果是0则输出空串，如果是1则输出字符
+            // 遍历右部的每个符号，记录是第几个可空符号，按照二进制是0还是1，如果是0则输出空串，如果是1则输出符号
             for (int i = 0; i < (1 << length); i++) {
-                StringBuilder newRight = new StringBuilder();
+                int[] newRight = new int[right.length - length + Integer.bitCount(i)];
+                int size = 0;
                 int index = 0;
-                for (char symbol : production.getRight().toCharArray()) {
-                    if (nullableSymbols.contains(symbol)) {
+                for (int symbol : right) {
+                    if (nullableSymbols.get(symbol)) {
                         if (((i >> index) & 1) == 1) {
-                            newRight.append(symbol);
+                            newRight[size++] = symbol;
                         }
                         index++;
                     } else {
-                        newRight.append(symbol);
+                        newRight[size++] = symbol;
                     }
                 }
-                if (newRight.length() == 0) {
+                if (size == 0) {
                     continue;
                 }
-                newProductionSet.add(new Production(production.getLeft(), newRight.toString()));
+                newProductionSet.add(new Production(production.getLeft(), newRight));
             }
         }
-        // 如果S在N’内，则P’应加入Z->S|ε，Z是一个新的非终结符，N1=N∪{Z}，N是原来的非终结符集合;如果S不在N’内，则N1=N，Z=S,最后G’=(N1,Σ,P’,Z)
-        if (nullableSymbols.contains(startSymbol)) {
-            newProductionSet.add(new Production('Z', String.valueOf(startSymbol)));
-            newProductionSet.add(new Production('Z', "ε"));
-            startSymbol = 'Z';
-            // 非终结符集合中加入Z
-            nonTerminalSet.add('Z');
+        // 如果S在N’内，则P’应加入S'->S|ε，S'是一个新的非终结符，N1=N∪{S'}，N是原来的非终结符集合;如果S不在N’内，则N1=N，最后G’=(N1,Σ,P’,S')
+        if (nullableSymbols.get(startSymbol)) {
+            int newStart = symbols.fresh(symbols.name(startSymbol) + "'");
+            newProductionSet.add(new Production(newStart, new int[]{startSymbol}));
+            newProductionSet.add(new Production(newStart, new int[0]));
+            startSymbol = newStart;
+            // 非终结符集合中加入S'
+            nonTerminalSet.set(newStart);
         }
         // 合并产生式并删除原来的epsilon产生式
         productionSet.addAll(newProductionSet);
-        Set<Production> newProductionSet2 = new HashSet<>();
+        Set<Production> newProductionSet2 = new LinkedHashSet<>();
         for (Production production : productionSet) {
-            // 除非左部是Z，否则不加右部是空串的产生式
-            if (production.getRight().equals("ε") && production.getLeft() != 'Z') {
+            // 除非左部是新的开始符号，否则不加右部是空串的产生式
+            if (production.length() == 0 && production.getLeft() != startSymbol) {
                 continue;
             }
             newProductionSet2.add(production);
         }
         productionSet = newProductionSet2;
+        if (measure) {
+            GrammarMetrics.record(metrics, "removeEpsilonProductions", worklistPops - pops, before, productionSet.size(), startNanos);
+        }
     }
 
     // 消除单一产生式
     public void removeUnitProductions(){
         /*
-         1.对于每个非终结符A，构造一个非终结符集合NA={B|A=>*B}，其中=>*表示A能推出B，按以下三步：
-           (1)N0={A}
-           (2)N'={C|如果B->C属于P，且B属于N0}∪N0
-           (3)如果N'≠N0，则N0=N'，转向(2)，否则NA=N‘，转向2.
-         2.之后构造P1：如果B->α属于P且不是单生成式，则对于B属于NA中的所有A，加入A->α到P1中
+         1.把单生成式A->B看作单推导图中的边A->B，则NA={B|A=>*B}就是A在图中能到达的结点（含A本身）：
+           (1)用Tarjan算法求出强连通分量，同一分量中的非终结符能到达的结点相同
+           (2)分量缩成一个结点后图无环，Tarjan算法按逆拓扑序完成分量，每个分量的位行为分量中的结点 ∪ 各后继分量的位行
+         2.构造P1时要找的是“所有满足B属于NA的A”，所以在反向图上求位行，B所在分量的位行即{A|A=>*B}：
+           如果B->α属于P且不是单生成式，则只枚举该位行中为1的位A，加入A->α到P1中
          3.得出文法G1=(N1,T1，P1,S)
          */
-        // 1.构造NA集合
-        Map<Character, Set<Character>> NA = new HashMap<>();
-        for (char nonTerminal : nonTerminalSet) {
-            Set<Character> N0 = new HashSet<>();
-            N0.add(nonTerminal);
-            Set<Character> N1 = new HashSet<>(N0);
-            while (true) {
-                for (Production production : productionSet) {
-                    if (N0.contains(production.getLeft())) {
-                        // 假如产生式右部是单个非终结符，则加入N1
-                        if (production.getRight().length() == 1 && Character.isUpperCase(production.getRight().charAt(0))) {
-                            N1.add(production.getRight().charAt(0));
+        boolean measure = measuring();
+        long startNanos = measure ? System.nanoTime() : 0;
+        int before = productionSet.size();
+        int pops = worklistPops;
+        Production[] productions = productionSet.toArray(new Production[0]);
+        // 1.非终结符重新编号为结点0..m-1，node为结点对应的符号，local为符号对应的结点
+        BitSet nodes = (BitSet) nonTerminalSet.clone();
+        for (Production production : productions) {
+            nodes.set(production.getLeft());
+            if (production.isUnit(symbols)) {
+                nodes.set(production.getRight()[0]);
+            }
+        }
+        int[] node = nodes.stream().toArray();
+        int m = node.length;
+        int[] local = new int[symbols.size()];
+        Arrays.fill(local, -1);
+        for (int v = 0; v < m; v++) {
+            local[node[v]] = v;
+        }
+        // 单生成式A->B对应反向边B->A，按起点存放，结点v的边位于edgeTarget[edgeStart[v], edgeStart[v + 1])
+        int[] edgeStart = new int[m + 1];
+        for (Production production : productions) {
+            if (production.isUnit(symbols)) {
+                edgeStart[local[production.getRight()[0]] + 1]++;
+            }
+        }
+        for (int v = 0; v < m; v++) {
+            edgeStart[v + 1] += edgeStart[v];
+        }
+        int[] edgeTarget = new int[edgeStart[m]];
+        int[] fill = Arrays.copyOf(edgeStart, m);
+        for (Production production : productions) {
+            if (production.isUnit(symbols)) {
+                edgeTarget[fill[local[production.getRight()[0]]]++] = local[production.getLeft()];
+            }
+        }
+        // 2.非递归的Tarjan算法，分量完成时计算它的位行
+        int words = (m + 63) >>> 6;
+        ArrayList<long[]> rows = new ArrayList<>(); // 分量 -> 位行
+        int[] sccOf = new int[m];
+        Arrays.fill(sccOf, -1);
+        int[] order = new int[m]; // 深度优先编号，0表示未访问
+        int[] low = new int[m];
+        int[] stack = new int[m]; // Tarjan栈
+        int sp = 0;
+        int[] callNode = new int[m]; // 递归调用栈：结点和下一条要访问的边
+        int[] callEdge = new int[m];
+        int[] merged = new int[m]; // 后继分量已并入哪个分量的位行（编号加1），避免重复合并
+        int counter = 0;
+        for (int root = 0; root < m; root++) {
+            if (order[root] != 0) {
+                continue;
+            }
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = edgeStart[root];
+            order[root] = low[root] = ++counter;
+            stack[sp++] = root;
+            while (depth >= 0) {
+                worklistPops++;
+                int v = callNode[depth];
+                if (callEdge[depth] < edgeStart[v + 1]) {
+                    int w = edgeTarget[callEdge[depth]++];
+                    if (order[w] == 0) {
+                        order[w] = low[w] = ++counter;
+                        stack[sp++] = w;
+                        depth++;
+                        callNode[depth] = w;
+                        callEdge[depth] = edgeStart[w];
+                    } else if (sccOf[w] < 0) {
+                        low[v] = Math.min(low[v], order[w]);
+                    }
+                    continue;
+                }
+                if (low[v] == order[v]) {
+                    // v是分量的根，出栈得到分量；分量中结点的后继要么在分量内，要么在已完成的分量中
+                    int scc = rows.size();
+                    long[] row = new long[words];
+                    int top = sp;
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        sccOf[w] = scc;
+                        row[w >>> 6] |= 1L << w;
+                    } while (w != v);
+                    for (int i = sp; i < top; i++) {
+                        int u = stack[i];
+                        for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                            int successor = sccOf[edgeTarget[e]];
+                            if (successor != scc && merged[successor] != scc + 1) {
+                                merged[successor] = scc + 1;
+                                long[] successorRow = rows.get(successor);
+                                for (int k = 0; k < words; k++) {
+                                    row[k] |= successorRow[k];
+                                }
+                            }
                         }
                     }
+                    rows.add(row);
                 }
-                if (N1.equals(N0)) {
-                    break;
+                depth--;
+                if (depth >= 0) {
+                    int parent = callNode[depth];
+                    low[parent] = Math.min(low[parent], low[v]);
                 }
-                N0 = N1;
-                N1 = new HashSet<>();
-                N1.add(nonTerminal);
             }
-            // NA的含义为：对于每个非终结符A，NA={B|A=>*B}
-            NA.put(nonTerminal, N0);
         }
-        // 2.构造P1集合
-        Set<Production> newProductionSet = new HashSet<>();
-        for (Production production : productionSet) {
-            if (production.getRight().length() == 1 && Character.isUpperCase(production.getRight().charAt(0))) {
+        // 3.构造P1集合，只枚举位行中为1的位
+        Set<Production> newProductionSet = new LinkedHashSet<>();
+        for (Production production : productions) {
+            if (production.isUnit(symbols)) {
                 continue;
             }
-            for (char nonTerminal : NA.keySet()) {
-                // 如果非终结符可以推导出生成式左部，则加入新的生成式
-                if (NA.get(nonTerminal).contains(production.getLeft())) {
-                    newProductionSet.add(new Production(nonTerminal, production.getRight()));
+            long[] row = rows.get(sccOf[local[production.getLeft()]]);
+            for (int k = 0; k < words; k++) {
+                for (long bits = row[k]; bits != 0; bits &= bits - 1) {
+                    int nonTerminal = node[(k << 6) + Long.numberOfTrailingZeros(bits)];
+                    // 能推导出生成式左部的非终结符，加入新的生成式
+                    if (nonTerminalSet.get(nonTerminal)) {
+                        newProductionSet.add(new Production(nonTerminal, production.getRight()));
+                    }
                 }
             }
         }
         productionSet = newProductionSet;
+        if (measure) {
+            GrammarMetrics.record(metrics, "removeUnitProductions", worklistPops - pops, before, productionSet.size(), startNanos);
+        }
     }
 
     // 删除无用非终结符
     public void removeUselessNonTerminals(){
          /*
          删除不能推出终结符串的非终结符
-         (1)N0=空集，N0为非终结符集合
-         (2)N'={A|A->α且α属于T*}，N’为非终结符集合
-         (3)如果N'≠N0，则转(4)，否则转(6)
-         (4)N0=N'
-         (5)N‘=N0∪{A|A->α且α属于(N0∪T)*}，转(3)
-         (6)N1=N',N1为新的非终结符集合
+         N1是满足“A->α且α属于(N1∪T)*”的最小集合，用derivable按工作表求出，N1为新的非终结符集合
           */
-        Set<Character> N0 = new HashSet<>();
-        while (true) {
-            Set<Character> N1 = new HashSet<>(N0);
-            for (Production production : productionSet) {
-                boolean flag = true;
-                for (char symbol : production.getRight().toCharArray()) {
-                    if (!terminalSet.contains(symbol) && !N0.contains(symbol)) {
-                        flag = false;
-                        break;
-                    }
-                }
-                if (flag) {
-                    N1.add(production.getLeft());
-                }
-            }
-            if (N1.equals(N0)) {
-                break;
-            }
-            N0 = N1;
-        }
-        nonTerminalSet = N0;
+        boolean measure = measuring();
+        long startNanos = measure ? System.nanoTime() : 0;
+        int before = productionSet.size();
+        int pops = worklistPops;
+        nonTerminalSet = derivable(productionSet.toArray(new Production[0]), terminalSet);
         // 删除产生式集合中的无用产生式
         removeUselessProductions();
+        if (measure) {
+            GrammarMetrics.record(metrics, "removeUselessNonTerminals", worklistPops - pops, before, productionSet.size(), startNanos);
+        }
     }
 
     // 消除无用符号
     public void removeUselessSymbols(){
+        boolean measure = measuring();
+        long startNanos = measure ? System.nanoTime() : 0;
+        int before = productionSet.size();
+        int pops = worklistPops;
         // 删除无用非终结符
         removeUselessNonTerminals();
         /*
          删除无用符号
-         (1)N0={S}
-         (2)N'={X|A属于N0且A->αXβ}∪N0，N’为有用符号集合，X属于N∪T
-         (3)如果N'≠N0，则转(4)，否则转(5)
-         (4)N0=N'转(2)
-         (5)N1=N'∩N，T1=N‘∩T
+         N’为从S出发可达的符号：N’={S}∪{X|A属于N’且A->αXβ}，X属于N∪T
+         按左部给产生式建立索引，从S出发广度优先遍历，每个非终结符的产生式只扫描一次
+         N1=N'∩N，T1=N‘∩T
          */
-        Set<Character> N0 = new HashSet<>();
-        N0.add(startSymbol);
-        while (true) {
-            Set<Character> N1 = new HashSet<>(N0);
-            for (Production production : productionSet) {
-                if (N0.contains(production.getLeft())) {
-                    for (char symbol : production.getRight().toCharArray()) {
-                        if (nonTerminalSet.contains(symbol) || terminalSet.contains(symbol)) {
-                            N1.add(symbol);
+        Production[] productions = productionSet.toArray(new Production[0]);
+        int[] byLeftStart = new int[symbols.size() + 1];
+        int[] byLeft = index(productions, byLeftStart, true);
+        BitSet N0 = new BitSet();
+        int[] queue = new int[symbols.size()];
+        int head = 0;
+        int tail = 0;
+        N0.set(startSymbol);
+        queue[tail++] = startSymbol;
+        while (head < tail) {
+            int left = queue[head++];
+            worklistPops++;
+            for (int k = byLeftStart[left]; k < byLeftStart[left + 1]; k++) {
+                for (int symbol : productions[byLeft[k]].getRight()) {
+                    if ((nonTerminalSet.get(symbol) || terminalSet.get(symbol)) && !N0.get(symbol)) {
+                        N0.set(symbol);
+                        if (nonTerminalSet.get(symbol)) {
+                            queue[tail++] = symbol;
                         }
                     }
                 }
             }
-            if (N1.equals(N0)) {
-                break;
-            }
-            N0 = N1;
         }
         // 删除原终结符集合和非终结符集合中的无用符号
-        Set<Character> newNonTerminalSet = new HashSet<>();
-        Set<Character> newTerminalSet = new HashSet<>();
-        for (char symbol : nonTerminalSet) {
-            if (N0.contains(symbol)) {
-                newNonTerminalSet.add(symbol);
+        nonTerminalSet.and(N0);
+        terminalSet.and(N0);
+        // 删除产生式集合中的无用产生式
+        removeUselessProductions();
+        if (measure) {
+            GrammarMetrics.record(metrics, "removeUselessSymbols", worklistPops - pops, before, productionSet.size(), startNanos);
+        }
+    }
+
+    // 转换为乔姆斯基范式
+    public void toChomskyNormalForm(){
+        /*
+         乔姆斯基范式的产生式只有A->BC和A->a两种，另外开始符号不出现在右部时可以有S->ε
+         需要先消除ε产生式和单产生式，之后：
+         1.长度至少为2的右部中的终结符a换成新的非终结符T_a，并加入T_a->a，每个终结符只引入一个T_a
+         2.右部长于2的产生式A->X1X2...Xn拆成A->X1A_1，A_1->X2A_2，...，A_n-2->Xn-1Xn
+         */
+        boolean measure = measuring();
+        long startNanos = measure ? System.nanoTime() : 0;
+        int before = productionSet.size();
+        int[] wrapper = new int[symbols.size()]; // 终结符 -> 代替它的非终结符T_a，还没有引入时为-1
+        Arrays.fill(wrapper, -1);
+        Set<Production> newProductionSet = new LinkedHashSet<>();
+        for (Production production : productionSet) {
+            int[] right = production.getRight();
+            if (right.length == 0 && production.getLeft() != startSymbol) {
+                throw new IllegalStateException("文法含有ε产生式" + production.toString(symbols) + "，请先调用removeEpsilonProductions");
+            }
+            if (production.isUnit(symbols)) {
+                throw new IllegalStateException("文法含有单产生式" + production.toString(symbols) + "，请先调用removeUnitProductions");
+            }
+            if (right.length < 2) {
+                newProductionSet.add(production);
+                continue;
+            }
+            int[] newRight = right.clone();
+            for (int i = 0; i < right.length; i++) {
+                int symbol = right[i];
+                if (symbols.isNonTerminal(symbol)) {
+                    continue;
+                }
+                if (wrapper[symbol] < 0) {
+                    wrapper[symbol] = symbols.fresh("T_" + symbols.name(symbol));
+                    nonTerminalSet.set(wrapper[symbol]);
+                    newProductionSet.add(new Production(wrapper[symbol], new int[]{symbol}));
+                }
+                newRight[i] = wrapper[symbol];
             }
+            split(production.getLeft(), newRight, newProductionSet);
+        }
+        productionSet = newProductionSet;
+        if (measure) {
+            GrammarMetrics.record(metrics, "toChomskyNormalForm", 0, before, productionSet.size(), startNanos);
         }
-        for (char symbol : terminalSet) {
-            if (N0.contains(symbol)) {
-                newTerminalSet.add(symbol);
+    }
+
+    // 当前产生式集合中能推出空串的符号，即右部的符号都可空的产生式的左部
+    public BitSet findNullableSymbols() {
+        return derivable(productionSet.toArray(new Production[0]), new BitSet());
+    }
+
+    // 右部中可空符号的个数
+    private int nullableCount(Production production) {
+        int count = 0;
+        for (int symbol : production.getRight()) {
+            if (nullableSymbols.get(symbol)) {
+                count++;
             }
         }
-        nonTerminalSet = newNonTerminalSet;
-        terminalSet = newTerminalSet;
-        // 删除产生式集合中的无用产生式
-        removeUselessProductions();
+        return count;
     }
 
-    // 根据产生式集合构造文法
-    public GrammarTransformer(Set<Production> productionSet) {
-        this.productionSet = productionSet;
-        nonTerminalSet = new HashSet<>();
-        terminalSet = new HashSet<>();
-        nullableSymbols = new HashSet<>();
-        // 开始符号默认为S
-        startSymbol = 'S';
-        // 大写符号为非终结符，其他符号为终结符
+    /**
+     * 把右部长于2且含有至少两个可空符号的产生式A->X1X2...Xn拆成
+     * A->X1A_1，A_1->X2A_2，...，A_n-2->Xn-1Xn，其中A_i是新的非终结符，代表后缀Xi+1...Xn。
+     * 之后每个产生式最多有两个可空符号，枚举的组合不超过3个。
+     */
+    private void binarize() {
+        Set<Production> newProductionSet = new LinkedHashSet<>();
         for (Production production : productionSet) {
-            nonTerminalSet.add(production.getLeft());
-            for (char symbol : production.getRight().toCharArray()) {
-                if (Character.isUpperCase(symbol)) {
-                    nonTerminalSet.add(symbol);
+            int[] right = production.getRight();
+            if (right.length <= 2 || nullableCount(production) < 2) {
+                newProductionSet.add(production);
+                continue;
+            }
+            split(production.getLeft(), right, newProductionSet);
+        }
+        productionSet = newProductionSet;
+    }
+
+    // 把产生式left->X1X2...Xn拆成二元产生式加入到productions中，辅助非终结符命名为左部名_序号
+    private void split(int left, int[] right, Set<Production> productions) {
+        String base = symbols.name(left);
+        for (int i = 0; i < right.length - 2; i++) {
+            int helper = symbols.fresh(base + "_" + ++helperCount);
+            nonTerminalSet.set(helper);
+            productions.add(new Production(left, new int[]{right[i], helper}));
+            left = helper;
+        }
+        productions.add(new Production(left, new int[]{right[right.length - 2], right[right.length - 1]}));
+    }
+
+    /**
+     * 求出满足“存在产生式A->α，α中的每个符号都在resolved中或已在结果中”的左部A的最小集合。
+     * 每个产生式记录右部中尚未确定的符号个数，某个非终结符加入结果时只对右部含有它的产生式减一，
+     * 减到0时左部加入结果，总时间与文法的大小成正比。
+     * 可空符号即resolved为空集的结果，能推出终结符串的非终结符即resolved为终结符集合的结果。
+     */
+    private BitSet derivable(Production[] productions, BitSet resolved) {
+        int[] usesStart = new int[symbols.size() + 1];
+        int[] uses = index(productions, usesStart, false);
+        int[] count = new int[productions.length];
+        int[] queue = new int[symbols.size()];
+        int head = 0;
+        int tail = 0;
+        BitSet result = new BitSet();
+        for (int p = 0; p < productions.length; p++) {
+            for (int symbol : productions[p].getRight()) {
+                if (!resolved.get(symbol)) {
+                    count[p]++;
+                }
+            }
+            int left = productions[p].getLeft();
+            if (count[p] == 0 && !result.get(left)) {
+                result.set(left);
+                queue[tail++] = left;
+            }
+        }
+        while (head < tail) {
+            int symbol = queue[head++];
+            worklistPops++;
+            if (resolved.get(symbol)) {
+                continue;
+            }
+            for (int k = usesStart[symbol]; k < usesStart[symbol + 1]; k++) {
+                int p = uses[k];
+                int left = productions[p].getLeft();
+                if (--count[p] == 0 && !result.get(left)) {
+                    result.set(left);
+                    queue[tail++] = left;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 产生式的索引，按计数排序存放：byLeft为true时按左部，符号X的产生式编号位于result[start[X], start[X + 1])；
+     * 否则按右部中的出现位置，右部每出现一次X就记录一次该产生式。
+     */
+    private static int[] index(Production[] productions, int[] start, boolean byLeft) {
+        for (Production production : productions) {
+            if (byLeft) {
+                start[production.getLeft() + 1]++;
+            } else {
+                for (int symbol : production.getRight()) {
+                    start[symbol + 1]++;
+                }
+            }
+        }
+        for (int i = 1; i < start.length; i++) {
+            start[i] += start[i - 1];
+        }
+        int[] result = new int[start[start.length - 1]];
+        int[] fill = Arrays.copyOf(start, start.length - 1);
+        for (int p = 0; p < productions.length; p++) {
+            if (byLeft) {
+                result[fill[productions[p].getLeft()]++] = p;
+            } else {
+                for (int symbol : productions[p].getRight()) {
+                    result[fill[symbol]++] = p;
+                }
+            }
+        }
+        return result;
+    }
+
+    // 根据符号表、产生式集合和开始符号构造文法
+    public GrammarTransformer(SymbolTable symbols, Collection<Production> productions, int startSymbol) {
+        this.symbols = symbols;
+        this.productionSet = new LinkedHashSet<>(productions);
+        this.startSymbol = startSymbol;
+        nonTerminalSet = new BitSet();
+        terminalSet = new BitSet();
+        nullableSymbols = new BitSet();
+        // 符号表中的非终结符和产生式的左部为非终结符，其他符号为终结符
+        for (Production production : productionSet) {
+            nonTerminalSet.set(production.getLeft());
+            for (int symbol : production.getRight()) {
+                if (symbols.isNonTerminal(symbol)) {
+                    nonTerminalSet.set(symbol);
                 } else {
-                    terminalSet.add(symbol);
+                    terminalSet.set(symbol);
                 }
             }
         }
     }
 
+    /**
+     * 从文本构造文法，每行一个产生式，左部和右部用 -> 分隔，右部可以用“|”分隔为多个候选式。
+     * 有左部超过一个字符或右部含有空白时，所有右部都按空白切分为多字符的符号名，否则每个字符是一个符号；ε表示空串。
+     * 产生式的左部和以大写字母开头的符号为非终结符，开始符号为S，没有S时为第一个产生式的左部。
+     */
+    public static GrammarTransformer parse(List<String> lines) {
+        SymbolTable symbols = new SymbolTable();
+        // 先登记所有左部，使右部中出现的同名符号都是非终结符
+        boolean words = false;
+        for (String line : lines) {
+            String[] split = line.split("->");
+            String left = split[0].trim();
+            symbols.nonTerminal(left);
+            words |= left.codePointCount(0, left.length()) > 1 || split[1].trim().chars().anyMatch(Character::isWhitespace);
+        }
+        List<Production> productions = new ArrayList<>();
+        for (String line : lines) {
+            String[] split = line.split("->");
+            int left = symbols.lookup(split[0].trim());
+            for (String s : split[1].trim().split("\\|")) {
+                productions.add(new Production(left, parseRight(symbols, s.trim(), words)));
+            }
+        }
+        int start = symbols.lookup("S");
+        if (start < 0) {
+            start = symbols.lookup(lines.get(0).split("->")[0].trim());
+        }
+        return new GrammarTransformer(symbols, productions, start);
+    }
+
+    private static int[] parseRight(SymbolTable symbols, String right, boolean words) {
+        List<String> names = new ArrayList<>();
+        if (words) {
+            names.addAll(Arrays.asList(right.split("\\s+")));
+        } else {
+            right.codePoints().forEach(c -> names.add(new String(Character.toChars(c))));
+        }
+        names.remove("");
+        names.removeIf(name -> name.equals("ε"));
+        int[] ids = new int[names.size()];
+        for (int i = 0; i < ids.length; i++) {
+            String name = names.get(i);
+            ids[i] = Character.isUpperCase(name.codePointAt(0)) ? symbols.nonTerminal(name) : symbols.terminal(name);
+        }
+        return ids;
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    public Set<Production> getProductionSet() {
+        return productionSet;
+    }
+
+    public int getStartSymbol() {
+        return startSymbol;
+    }
+
+    public BitSet getNonTerminalSet() {
+        return nonTerminalSet;
+    }
+
+    public BitSet getTerminalSet() {
+        return terminalSet;
+    }
+
+    // 可空符号集合，在removeEpsilonProductions之后有效
+    public BitSet getNullableSymbols() {
+        return nullableSymbols;
+    }
+
+    // 位集合中的符号名，按编号的顺序
+    private String namesOf(BitSet set) {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int symbol = set.nextSetBit(0); symbol >= 0; symbol = set.nextSetBit(symbol + 1)) {
+            joiner.add(symbols.name(symbol));
+        }
+        return joiner.toString();
+    }
+
     // 输出文法的非终结符、终结符、产生式集合、开始符号
     public void print() {
         System.out.println("非终结符：");
-        System.out.println(nonTerminalSet);
+        System.out.println(namesOf(nonTerminalSet));
         System.out.println("终结符：");
-        // 不输出ε但不删除终结符集合中的ε
-        Set<Character> newTerminalSet = new HashSet<>(terminalSet);
-        newTerminalSet.remove('ε');
-        System.out.println(newTerminalSet);
+        System.out.println(namesOf(terminalSet));
         // 输出开始符号
         System.out.println("开始符号：");
-        System.out.println(startSymbol);
-        // 按照左部的字典序对产生式集合排序
+        System.out.println(symbols.name(startSymbol));
+        // 按照左部的编号对产生式集合排序，同一左部的产生式保持原来的顺序
         // 输出产生式时，首先输出左部->右部，之后遍历后面的产生式，如果左部相同则输出|右部，否则输出换行符
         System.out.println("产生式：");
         List<Production> productionList = new ArrayList<>(productionSet);
-        productionList.sort(Comparator.comparing(Production::getLeft));
+        productionList.sort(Comparator.comparingInt(Production::getLeft));
         int index = 0;
         while (index < productionList.size()) {
             Production production = productionList.get(index);
-            if (production.getLeft() == startSymbol) {
-                System.out.print(production.getLeft() + "->" + production.getRight());
-                index++;
-                while (index < productionList.size() && productionList.get(index).getLeft() == startSymbol) {
-                    System.out.print("|" + productionList.get(index).getRight());
-                    index++;
-                }
-                System.out.println();
-            } else {
-                System.out.print(production.getLeft() + "->" + production.getRight());
+            System.out.print(production.toString(symbols));
+            index++;
+            while (index < productionList.size() && productionList.get(index).getLeft() == production.getLeft()) {
+                System.out.print("|" + Production.rightToString(symbols, productionList.get(index).getRight()));
                 index++;
-                while (index < productionList.size() && productionList.get(index).getLeft() == production.getLeft()) {
-                    System.out.print("|" + productionList.get(index).getRight());
-                    index++;
-                }
-                System.out.println();
             }
+            System.out.println();
         }
         System.out.println();
     }
@@ -377,22 +744,19 @@ class GrammarTransformer    {
 public class Main {
     public static void main(String[] args) {
         // 输出提示信息
-        System.out.println("请输入文法的产生式：\n1.每个产生式占一行，产生式的左部和右部用 -> 分隔\n2.产生式的右部可以用多个“|”分隔，产生式的左部是单个非终结符\n3.非终结符用大写字母表示，终结符用大写字母以外的字符表示\n4.空串用 ε 表示，输入以“#”结束\n输入：");
-        // 根据输入的字符串构建产生式集合
-        Set<Production> productionSet = new HashSet<>();
+        System.out.println("请输入文法的产生式：\n1.每个产生式占一行，产生式的左部和右部用 -> 分隔\n2.产生式的右部可以用多个“|”分隔，产生式的左部是单个非终结符\n3.产生式的左部和以大写字母开头的符号为非终结符，其他符号为终结符\n4.右部中的符号用空格分隔时符号名可以有多个字符（此时所有右部都要用空格分隔），否则每个字符是一个符号\n5.空串用 ε 表示，输入以“#”结束\n输入：");
+        // 读入所有产生式
+        List<String> lines = new ArrayList<>();
         Scanner scanner = new Scanner(System.in);
         String input = scanner.nextLine();
         while (!input.equals("#")) {
-            String[] split = input.split("->");
-            String left = split[0].trim();
-            String[] right = split[1].trim().split("\\|");
-            for (String s : right) {
-                productionSet.add(new Production(left.charAt(0), s.trim()));
+            if (!input.trim().isEmpty()) {
+                lines.add(input);
             }
             input = scanner.nextLine();
         }
         // 构建文法
-        GrammarTransformer grammarTransformer = new GrammarTransformer(productionSet);
+        GrammarTransformer grammarTransformer = GrammarTransformer.parse(lines);
         // 输出文法
         grammarTransformer.print();
         // 消除epsilon产生式
@@ -410,5 +774,12 @@ public class Main {
         // 输出消除无用符号后的文法
         System.out.println("消除无用符号后的文法：");
         grammarTransformer.print();
+        // 输出FIRST、FOLLOW集合和分析表的冲突
+        new ParseTables(grammarTransformer).print();
+        // 转换为乔姆斯基范式
+        grammarTransformer.toChomskyNormalForm();
+        // 输出乔姆斯基范式的文法
+        System.out.println("乔姆斯基范式的文法：");
+        grammarTransformer.print();
     }
-}
\ No newline at end of file
+}
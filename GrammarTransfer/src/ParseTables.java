@@ -0,0 +1,649 @@
+/**
+ * 由文法生成LL(1)分析表和SLR分析表，并用分析表分析记号序列。
+ * FIRST和FOLLOW集合是终结符上的位集合，每个非终结符一行long；集合之间的包含关系看作依赖图，
+ * 用工作表传播：某一行变大时只把它重新并入依赖它的行。
+ * 分析表都存放在一维int数组中，列为终结符和输入结束符$；有冲突的表项保留先填入的一项，冲突都记录在conflicts中，
+ * 有冲突的分析表不能用来分析（左递归等情况下会陷入死循环）。
+ * 分析时复用预先分配的栈数组，每个记号只做数组下标运算，不分配对象，所以同一个ParseTables不能同时在多个线程中分析。
+ */
+import java.util.*;
+
+class ParseTables {
+    // 产生式的回调：LL(1)分析按最左推导的顺序给出每次展开的产生式，SLR分析按归约的顺序给出产生式
+    interface ProductionHandler {
+        void production(int index);
+    }
+
+    // 分析表中的一个冲突
+    static final class Conflict {
+        public final boolean ll; // LL(1)表的冲突，否则为SLR表的冲突
+        public final int row; // LL(1)表为非终结符，SLR表为状态
+        public final int terminal; // 终结符，输入结束符为-1
+        public final String message;
+
+        Conflict(boolean ll, int row, int terminal, String message) {
+            this.ll = ll;
+            this.row = row;
+            this.terminal = terminal;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return message;
+        }
+    }
+
+    private final SymbolTable symbols;
+    private final Production[] productions;
+    private final int[] terminals; // 列 -> 终结符，最后一列end为输入结束符
+    private final int[] columnOf; // 符号 -> 列，不是终结符时为-1
+    private final int end; // 输入结束符的列
+    private final int columns; // 列数
+    private final int words; // 一行位集合的long个数
+    private final int[] nonTerminals; // 非终结符编号 -> 符号
+    private final int[] indexOf; // 符号 -> 非终结符编号，不是非终结符时为-1
+    private final int start; // 开始符号的非终结符编号
+    private final int[] ruleLeft; // 产生式 -> 左部的非终结符编号
+    private final int[] ruleStart; // 产生式p的右部为rhs[ruleStart[p], ruleStart[p + 1])
+    private final int[] rhs; // 右部的符号：终结符为列，非终结符为columns + 非终结符编号
+    private final boolean[] nullable; // 非终结符是否可空
+    private final long[] first; // 非终结符的FIRST集合，每行words个long
+    private final long[] follow; // 非终结符的FOLLOW集合，每行words个long
+
+    private final int[] ll; // LL(1)分析表：非终结符 × 列 -> 产生式，没有时为-1
+    private final int[] action; // SLR动作表：状态 × 列 -> 移进到状态s为s + 1，按产生式p归约为-(p + 1)，出错为0
+    private final int[] gotoTable; // SLR转移表：状态 × 非终结符 -> 状态，没有时为-1
+    private final int states; // LR(0)项目集的个数
+    private final int accept; // 接受对应的动作：按增广产生式S''->S归约
+    private final List<Conflict> conflicts = new ArrayList<>();
+    private int llConflicts; // LL(1)表的冲突个数
+    private int slrConflicts; // SLR表的冲突个数
+    private int[] stack = new int[64]; // 分析栈，两种分析共用
+
+    public ParseTables(GrammarTransformer grammar) {
+        symbols = grammar.getSymbols();
+        productions = grammar.getProductionSet().toArray(new Production[0]);
+        int n = symbols.size();
+        // 终结符和非终结符分别编号
+        BitSet terminalSet = new BitSet();
+        BitSet nonTerminalSet = new BitSet();
+        nonTerminalSet.set(grammar.getStartSymbol());
+        for (Production production : productions) {
+            nonTerminalSet.set(production.getLeft());
+            for (int symbol : production.getRight()) {
+                (symbols.isNonTerminal(symbol) ? nonTerminalSet : terminalSet).set(symbol);
+            }
+        }
+        end = terminalSet.cardinality();
+        columns = end + 1;
+        words = (columns + 63) >>> 6;
+        terminals = new int[columns];
+        columnOf = new int[n];
+        Arrays.fill(columnOf, -1);
+        int column = 0;
+        for (int symbol = terminalSet.nextSetBit(0); symbol >= 0; symbol = terminalSet.nextSetBit(symbol + 1)) {
+            terminals[column] = symbol;
+            columnOf[symbol] = column++;
+        }
+        terminals[end] = -1;
+        nonTerminals = nonTerminalSet.stream().toArray();
+        int m = nonTerminals.length;
+        indexOf = new int[n];
+        Arrays.fill(indexOf, -1);
+        for (int k = 0; k < m; k++) {
+            indexOf[nonTerminals[k]] = k;
+        }
+        start = indexOf[grammar.getStartSymbol()];
+        // 产生式的右部展开为一个数组，最后加上增广产生式S''->S
+        int rules = productions.length;
+        ruleLeft = new int[rules + 1];
+        ruleStart = new int[rules + 2];
+        for (int p = 0; p < rules; p++) {
+            ruleStart[p + 1] = ruleStart[p] + productions[p].length();
+        }
+        ruleStart[rules + 1] = ruleStart[rules] + 1;
+        rhs = new int[ruleStart[rules + 1]];
+        for (int p = 0; p < rules; p++) {
+            ruleLeft[p] = indexOf[productions[p].getLeft()];
+            int k = ruleStart[p];
+            for (int symbol : productions[p].getRight()) {
+                rhs[k++] = columnOf[symbol] >= 0 ? columnOf[symbol] : columns + indexOf[symbol];
+            }
+        }
+        ruleLeft[rules] = -1;
+        rhs[ruleStart[rules]] = columns + start;
+        accept = -(rules + 1);
+        nullable = new boolean[m];
+        BitSet nullableSymbols = grammar.findNullableSymbols();
+        for (int k = 0; k < m; k++) {
+            nullable[k] = nullableSymbols.get(nonTerminals[k]);
+        }
+        first = new long[m * words];
+        follow = new long[m * words];
+        computeFirst();
+        computeFollow();
+        ll = new int[m * columns];
+        buildLL();
+        // SLR表的大小在求出LR(0)项目集之后才知道
+        ArrayList<int[]> transitions = new ArrayList<>();
+        ArrayList<int[]> reductions = new ArrayList<>();
+        states = buildLR0(transitions, reductions);
+        action = new int[states * columns];
+        gotoTable = new int[states * m];
+        buildSLR(transitions, reductions);
+    }
+
+    // FIRST(A)包含A->Y1...Yk...中Y1...Yk-1都可空时Yk的FIRST集合
+    private void computeFirst() {
+        IntList from = new IntList();
+        IntList to = new IntList();
+        for (int p = 0; p < productions.length; p++) {
+            int left = ruleLeft[p];
+            for (int k = ruleStart[p]; k < ruleStart[p + 1]; k++) {
+                int symbol = rhs[k];
+                if (symbol < columns) {
+                    first[left * words + (symbol >>> 6)] |= 1L << symbol;
+                    break;
+                }
+                from.add(symbol - columns);
+                to.add(left);
+                if (!nullable[symbol - columns]) {
+                    break;
+                }
+            }
+        }
+        propagate(first, from, to);
+    }
+
+    // A->αBβ时FOLLOW(B)包含FIRST(β)，β可空时还包含FOLLOW(A)；FOLLOW(S)包含$
+    private void computeFollow() {
+        IntList from = new IntList();
+        IntList to = new IntList();
+        follow[start * words + (end >>> 6)] |= 1L << end;
+        for (int p = 0; p < productions.length; p++) {
+            for (int i = ruleStart[p]; i < ruleStart[p + 1]; i++) {
+                if (rhs[i] < columns) {
+                    continue;
+                }
+                int row = (rhs[i] - columns) * words;
+                int k = i + 1;
+                for (; k < ruleStart[p + 1]; k++) {
+                    int symbol = rhs[k];
+                    if (symbol < columns) {
+                        follow[row + (symbol >>> 6)] |= 1L << symbol;
+                        break;
+                    }
+                    or(follow, row, first, (symbol - columns) * words);
+                    if (!nullable[symbol - columns]) {
+                        break;
+                    }
+                }
+                if (k == ruleStart[p + 1]) {
+                    from.add(ruleLeft[p]);
+                    to.add(rhs[i] - columns);
+                }
+            }
+        }
+        propagate(follow, from, to);
+    }
+
+    /**
+     * 沿依赖边from[e] -> to[e]把rows中from[e]行并入to[e]行，直到不再变化。
+     * 所有行先入队；出队时把它并入依赖它的行，变大的行不在队中时重新入队。
+     */
+    private void propagate(long[] rows, IntList from, IntList to) {
+        int m = nonTerminals.length;
+        int[] edgeStart = new int[m + 1];
+        for (int e = 0; e < from.size; e++) {
+            edgeStart[from.data[e] + 1]++;
+        }
+        for (int k = 0; k < m; k++) {
+            edgeStart[k + 1] += edgeStart[k];
+        }
+        int[] edgeTarget = new int[from.size];
+        int[] fill = Arrays.copyOf(edgeStart, m);
+        for (int e = 0; e < from.size; e++) {
+            edgeTarget[fill[from.data[e]]++] = to.data[e];
+        }
+        int[] queue = new int[m];
+        boolean[] queued = new boolean[m];
+        int head = 0;
+        int size = m;
+        for (int k = 0; k < m; k++) {
+            queue[k] = k;
+            queued[k] = true;
+        }
+        while (size > 0) {
+            int x = queue[head];
+            head = head + 1 == m ? 0 : head + 1;
+            size--;
+            queued[x] = false;
+            for (int e = edgeStart[x]; e < edgeStart[x + 1]; e++) {
+                int y = edgeTarget[e];
+                if (y != x && or(rows, y * words, rows, x * words) && !queued[y]) {
+                    queued[y] = true;
+                    queue[(head + size) % m] = y;
+                    size++;
+                }
+            }
+        }
+    }
+
+    // target的一行并上source的一行，返回是否变大
+    private boolean or(long[] target, int to, long[] source, int from) {
+        boolean changed = false;
+        for (int w = 0; w < words; w++) {
+            long merged = target[to + w] | source[from + w];
+            if (merged != target[to + w]) {
+                target[to + w] = merged;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // M[A, a]：a属于FIRST(α)时为A->α；α可空且a属于FOLLOW(A)时也为A->α
+    private void buildLL() {
+        Arrays.fill(ll, -1);
+        long[] select = new long[words];
+        for (int p = 0; p < productions.length; p++) {
+            int left = ruleLeft[p];
+            Arrays.fill(select, 0);
+            int k = ruleStart[p];
+            for (; k < ruleStart[p + 1]; k++) {
+                int symbol = rhs[k];
+                if (symbol < columns) {
+                    select[symbol >>> 6] |= 1L << symbol;
+                    break;
+                }
+                or(select, 0, first, (symbol - columns) * words);
+                if (!nullable[symbol - columns]) {
+                    break;
+                }
+            }
+            if (k == ruleStart[p + 1]) {
+                or(select, 0, follow, left * words);
+            }
+            for (int w = 0; w < words; w++) {
+                for (long bits = select[w]; bits != 0; bits &= bits - 1) {
+                    int column = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    int index = left * columns + column;
+                    if (ll[index] < 0) {
+                        ll[index] = p;
+                    } else if (ll[index] != p) {
+                        llConflicts++;
+                        conflicts.add(new Conflict(true, left, terminals[column], "LL(1)：M[" + symbols.name(nonTerminals[left]) + ", " + columnName(column) + "]中"
+                                + productions[ll[index]].toString(symbols) + "与" + productions[p].toString(symbols) + "冲突"));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 求LR(0)项目集规范族，返回项目集个数。项目用点的位置表示：产生式p的点在dot处为ruleStart[p] + p + dot。
+     * 项目集用核心项目的有序数组表示，闭包在展开时临时求出；transitions记录每个项目集经由每个符号到达的项目集，
+     * reductions记录每个项目集中可以归约的产生式。
+     */
+    private int buildLR0(ArrayList<int[]> transitions, ArrayList<int[]> reductions) {
+        int rules = productions.length;
+        int m = nonTerminals.length;
+        int slots = ruleStart[rules + 1] + rules + 1;
+        int[] slotRule = new int[slots];
+        for (int p = 0; p <= rules; p++) {
+            for (int slot = ruleStart[p] + p; slot <= ruleStart[p + 1] + p; slot++) {
+                slotRule[slot] = p;
+            }
+        }
+        // 每个非终结符的产生式
+        int[] byLeftStart = new int[m + 1];
+        for (int p = 0; p < rules; p++) {
+            byLeftStart[ruleLeft[p] + 1]++;
+        }
+        for (int k = 0; k < m; k++) {
+            byLeftStart[k + 1] += byLeftStart[k];
+        }
+        int[] byLeft = new int[rules];
+        int[] fill = Arrays.copyOf(byLeftStart, m);
+        for (int p = 0; p < rules; p++) {
+            byLeft[fill[ruleLeft[p]]++] = p;
+        }
+        HashMap<Kernel, Integer> ids = new HashMap<>();
+        ArrayList<int[]> kernels = new ArrayList<>();
+        int[] initial = {ruleStart[rules] + rules};
+        ids.put(new Kernel(initial), 0);
+        kernels.add(initial);
+        int[] added = new int[m]; // 非终结符 -> 最后一次加入闭包的项目集编号加1
+        IntList closure = new IntList();
+        IntList moves = new IntList();
+        for (int state = 0; state < kernels.size(); state++) {
+            // 闭包：点后为非终结符B时加入B的所有产生式的初始项目
+            closure.size = 0;
+            for (int slot : kernels.get(state)) {
+                closure.add(slot);
+            }
+            for (int i = 0; i < closure.size; i++) {
+                int slot = closure.data[i];
+                int p = slotRule[slot];
+                int dot = slot - ruleStart[p] - p;
+                if (dot < ruleStart[p + 1] - ruleStart[p] && rhs[ruleStart[p] + dot] >= columns) {
+                    int b = rhs[ruleStart[p] + dot] - columns;
+                    if (added[b] != state + 1) {
+                        added[b] = state + 1;
+                        for (int k = byLeftStart[b]; k < byLeftStart[b + 1]; k++) {
+                            closure.add(ruleStart[byLeft[k]] + byLeft[k]);
+                        }
+                    }
+                }
+            }
+            // 按点后的符号分组，每组的点后移一位就是后继项目集的核心
+            moves.size = 0;
+            IntList reduce = new IntList();
+            for (int i = 0; i < closure.size; i++) {
+                int slot = closure.data[i];
+                int p = slotRule[slot];
+                int dot = slot - ruleStart[p] - p;
+                if (dot == ruleStart[p + 1] - ruleStart[p]) {
+                    reduce.add(p);
+                } else {
+                    moves.add(rhs[ruleStart[p] + dot]);
+                    moves.add(slot + 1);
+                }
+            }
+            long[] pairs = new long[moves.size / 2];
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] = ((long) moves.data[2 * i] << 32) | moves.data[2 * i + 1];
+            }
+            Arrays.sort(pairs);
+            IntList edges = new IntList();
+            for (int i = 0; i < pairs.length; ) {
+                int symbol = (int) (pairs[i] >>> 32);
+                int j = i;
+                while (j < pairs.length && (int) (pairs[j] >>> 32) == symbol) {
+                    j++;
+                }
+                int[] kernel = new int[j - i];
+                int size = 0;
+                for (int k = i; k < j; k++) {
+                    int slot = (int) pairs[k];
+                    if (size == 0 || kernel[size - 1] != slot) {
+                        kernel[size++] = slot;
+                    }
+                }
+                kernel = Arrays.copyOf(kernel, size);
+                Integer target = ids.get(new Kernel(kernel));
+                if (target == null) {
+                    target = kernels.size();
+                    ids.put(new Kernel(kernel), target);
+                    kernels.add(kernel);
+                }
+                edges.add(symbol);
+                edges.add(target);
+                i = j;
+            }
+            transitions.add(edges.toArray());
+            reductions.add(reduce.toArray());
+        }
+        return kernels.size();
+    }
+
+    // 移进和转移来自LR(0)项目集的转移；A->α•所在的项目集对FOLLOW(A)中的终结符按A->α归约
+    private void buildSLR(ArrayList<int[]> transitions, ArrayList<int[]> reductions) {
+        int m = nonTerminals.length;
+        Arrays.fill(gotoTable, -1);
+        for (int state = 0; state < states; state++) {
+            int[] edges = transitions.get(state);
+            for (int i = 0; i < edges.length; i += 2) {
+                if (edges[i] < columns) {
+                    action[state * columns + edges[i]] = edges[i + 1] + 1;
+                } else {
+                    gotoTable[state * m + edges[i] - columns] = edges[i + 1];
+                }
+            }
+            for (int p : reductions.get(state)) {
+                if (p == productions.length) {
+                    setAction(state, end, accept);
+                    continue;
+                }
+                int row = ruleLeft[p] * words;
+                for (int w = 0; w < words; w++) {
+                    for (long bits = follow[row + w]; bits != 0; bits &= bits - 1) {
+                        setAction(state, (w << 6) + Long.numberOfTrailingZeros(bits), -(p + 1));
+                    }
+                }
+            }
+        }
+    }
+
+    private void setAction(int state, int column, int value) {
+        int index = state * columns + column;
+        int old = action[index];
+        if (old == 0) {
+            action[index] = value;
+        } else if (old != value) {
+            slrConflicts++;
+            conflicts.add(new Conflict(false, state, terminals[column], "SLR：状态" + state + "遇到" + columnName(column) + "时"
+                    + actionName(old) + "与" + actionName(value) + "冲突"));
+        }
+    }
+
+    private String actionName(int value) {
+        if (value > 0) {
+            return "移进到状态" + (value - 1);
+        }
+        if (value == accept) {
+            return "接受";
+        }
+        return "按" + productions[-value - 1].toString(symbols) + "归约";
+    }
+
+    private String columnName(int column) {
+        return column == end ? "$" : symbols.name(terminals[column]);
+    }
+
+    // 记号对应的列，不是文法中的终结符时为-1
+    private int column(int[] tokens, int i) {
+        if (i == tokens.length) {
+            return end;
+        }
+        int token = tokens[i];
+        return token >= 0 && token < columnOf.length ? columnOf[token] : -1;
+    }
+
+    private void push(int sp, int value) {
+        if (sp == stack.length) {
+            stack = Arrays.copyOf(stack, 2 * sp);
+        }
+        stack[sp] = value;
+    }
+
+    // 用LL(1)分析表分析记号序列，handler为null时只判断是否接受
+    public boolean parseLL(int[] tokens, ProductionHandler handler) {
+        if (llConflicts > 0) {
+            throw new IllegalStateException("文法不是LL(1)文法，分析表有" + llConflicts + "个冲突");
+        }
+        int[] table = ll;
+        int i = 0;
+        int a = column(tokens, 0);
+        int sp = 0;
+        push(sp++, end);
+        push(sp++, columns + start);
+        while (a >= 0) {
+            int x = stack[--sp];
+            if (x < columns) {
+                if (x != a) {
+                    return false;
+                }
+                if (a == end) {
+                    return true;
+                }
+                a = column(tokens, ++i);
+                continue;
+            }
+            int p = table[(x - columns) * columns + a];
+            if (p < 0) {
+                return false;
+            }
+            if (handler != null) {
+                handler.production(p);
+            }
+            // 右部逆序入栈
+            for (int k = ruleStart[p + 1] - 1; k >= ruleStart[p]; k--) {
+                push(sp++, rhs[k]);
+            }
+        }
+        return false;
+    }
+
+    // 用SLR分析表分析记号序列，handler为null时只判断是否接受
+    public boolean parseSLR(int[] tokens, ProductionHandler handler) {
+        if (slrConflicts > 0) {
+            throw new IllegalStateException("文法不是SLR文法，分析表有" + slrConflicts + "个冲突");
+        }
+        int[] table = action;
+        int m = nonTerminals.length;
+        int i = 0;
+        int a = column(tokens, 0);
+        int sp = 0;
+        push(sp, 0);
+        while (a >= 0) {
+            int act = table[stack[sp] * columns + a];
+            if (act > 0) {
+                push(++sp, act - 1);
+                a = column(tokens, ++i);
+            } else if (act < 0) {
+                if (act == accept) {
+                    return true;
+                }
+                int p = -act - 1;
+                sp -= ruleStart[p + 1] - ruleStart[p];
+                if (handler != null) {
+                    handler.production(p);
+                }
+                push(sp + 1, gotoTable[stack[sp] * m + ruleLeft[p]]);
+                sp++;
+            } else {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    // 产生式编号与回调中的编号一致
+    public Production[] getProductions() {
+        return productions;
+    }
+
+    public List<Conflict> getConflicts() {
+        return conflicts;
+    }
+
+    public boolean isLL1() {
+        return llConflicts == 0;
+    }
+
+    public boolean isSLR() {
+        return slrConflicts == 0;
+    }
+
+    // LR(0)项目集的个数
+    public int stateCount() {
+        return states;
+    }
+
+    // 非终结符的FIRST集合，含ε时加入-1
+    public Set<Integer> first(int nonTerminal) {
+        Set<Integer> result = row(first, indexOf[nonTerminal]);
+        if (nullable[indexOf[nonTerminal]]) {
+            result.add(-1);
+        }
+        return result;
+    }
+
+    // 非终结符的FOLLOW集合，$为-1
+    public Set<Integer> follow(int nonTerminal) {
+        return row(follow, indexOf[nonTerminal]);
+    }
+
+    private Set<Integer> row(long[] rows, int index) {
+        Set<Integer> result = new LinkedHashSet<>();
+        for (int w = 0; w < words; w++) {
+            for (long bits = rows[index * words + w]; bits != 0; bits &= bits - 1) {
+                result.add(terminals[(w << 6) + Long.numberOfTrailingZeros(bits)]);
+            }
+        }
+        return result;
+    }
+
+    // 输出每个非终结符的FIRST、FOLLOW集合和两种分析表的冲突
+    public void print() {
+        System.out.println("FIRST集合和FOLLOW集合：");
+        for (int k = 0; k < nonTerminals.length; k++) {
+            System.out.println(symbols.name(nonTerminals[k]) + "：FIRST=" + names(first(nonTerminals[k]), "ε") + "，FOLLOW=" + names(follow(nonTerminals[k]), "$"));
+        }
+        System.out.println(isLL1() ? "是LL(1)文法" : "不是LL(1)文法：");
+        for (Conflict conflict : conflicts) {
+            if (conflict.ll) {
+                System.out.println(conflict);
+            }
+        }
+        System.out.println("LR(0)项目集" + states + "个，" + (isSLR() ? "是SLR文法" : "不是SLR文法："));
+        for (Conflict conflict : conflicts) {
+            if (!conflict.ll) {
+                System.out.println(conflict);
+            }
+        }
+        System.out.println();
+    }
+
+    private String names(Set<Integer> set, String none) {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int symbol : set) {
+            joiner.add(symbol < 0 ? none : symbols.name(symbol));
+        }
+        return joiner.toString();
+    }
+
+    // 项目集的核心：有序的项目数组
+    private static final class Kernel {
+        final int[] slots;
+        final int hash;
+
+        Kernel(int[] slots) {
+            this.slots = slots;
+            this.hash = Arrays.hashCode(slots);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Kernel && Arrays.equals(slots, ((Kernel) obj).slots);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // 可增长的int数组
+    private static final class IntList {
+        int[] data = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, 2 * size);
+            }
+            data[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * 文法符号表：把符号名映射为从0开始的稠密整数编号，并记录每个符号是终结符还是非终结符。
+ * 符号名可以由多个字符组成；变换中需要新的非终结符时用fresh生成不与已有符号重名的名字。
+ */
+import java.util.*;
+
+class SymbolTable {
+    private final ArrayList<String> names; // 编号 -> 符号名
+    private final HashMap<String, Integer> ids; // 符号名 -> 编号
+    private final BitSet nonTerminals; // 非终结符的编号
+
+    public SymbolTable() {
+        names = new ArrayList<>();
+        ids = new HashMap<>();
+        nonTerminals = new BitSet();
+    }
+
+    // 复制符号表，之后两个符号表各自添加符号互不影响
+    public SymbolTable(SymbolTable other) {
+        names = new ArrayList<>(other.names);
+        ids = new HashMap<>(other.ids);
+        nonTerminals = (BitSet) other.nonTerminals.clone();
+    }
+
+    // 非终结符的编号，不存在时新建；已作为终结符出现的符号改为非终结符
+    public int nonTerminal(String name) {
+        int id = intern(name);
+        nonTerminals.set(id);
+        return id;
+    }
+
+    // 终结符的编号，不存在时新建；已存在的符号保持原来的种类
+    public int terminal(String name) {
+        return intern(name);
+    }
+
+    // 生成一个新的非终结符：名字为base，重名时在后面加'直到不重名
+    public int fresh(String base) {
+        String name = base;
+        while (ids.containsKey(name)) {
+            name += "'";
+        }
+        return nonTerminal(name);
+    }
+
+    // 符号名对应的编号，不存在时返回-1
+    public int lookup(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public String name(int id) {
+        return names.get(id);
+    }
+
+    public boolean isNonTerminal(int id) {
+        return nonTerminals.get(id);
+    }
+
+    // 符号个数，符号编号都小于该值
+    public int size() {
+        return names.size();
+    }
+
+    // 把句子切分为符号编号：含有空白时按空白切分，否则每个字符是一个符号；不是终结符的记号为-1
+    public int[] tokenize(String sentence) {
+        String trimmed = sentence.trim();
+        List<String> tokens = new ArrayList<>();
+        if (trimmed.chars().anyMatch(Character::isWhitespace)) {
+            tokens.addAll(Arrays.asList(trimmed.split("\\s+")));
+        } else {
+            trimmed.codePoints().forEach(c -> tokens.add(new String(Character.toChars(c))));
+        }
+        int[] result = new int[tokens.size()];
+        for (int i = 0; i < result.length; i++) {
+            int id = lookup(tokens.get(i));
+            result[i] = id >= 0 && !isNonTerminal(id) ? id : -1;
+        }
+        return result;
+    }
+
+    private int intern(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            ids.put(name, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,136 @@
+//编译后的DFA：状态编号为0..n-1，转移函数为一维int数组，用于在字符串上高速运行DFA
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+class CompiledDFA extends TableDFA {
+    //二进制文件格式，所有整数均为小端序：
+    //文件头7个int：MAGIC、VERSION、状态数、字符数、起始状态、转移表偏移、终止状态位集合偏移
+    //字母表：每个转移字符为int长度 + UTF-8字节
+    //转移表：状态数 * (字符数 + 1)个int，从8字节对齐的偏移开始
+    //终止状态位集合：(状态数 + 63) / 64个long，从8字节对齐的偏移开始
+    static final int MAGIC = 0x41464443; //"CDFA"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 7 * 4;
+
+    final int[] table; //table[state * width + column]为转移后的状态
+    final long[] accept; //终止状态的位集合
+    final int[][] patterns; //每个状态匹配的模式编号，DFA没有模式标记时为null
+
+    //由DFA编译，DFA中下标为i的状态编号为i + 1
+    public CompiledDFA(DFA dfa) {
+        this(dfa, dfa.symbols());
+    }
+
+    private CompiledDFA(DFA dfa, ArrayList<String> symbolList) {
+        super(symbolList.toArray(new String[0]), dfa.states.size() + 1, startOf(dfa));
+        int[] partial = dfa.transitionTable(symbolList);
+        int k = symbolList.size();
+        this.table = new int[stateCount * width];
+        for (int i = 0; i + 1 < stateCount; i++) {
+            for (int c = 0; c < k; c++) {
+                table[(i + 1) * width + c] = partial[i * k + c] + 1;
+            }
+        }
+        this.accept = new long[(stateCount + 63) >>> 6];
+        boolean[] accepting = dfa.accepting();
+        for (int i = 0; i < accepting.length; i++) {
+            if (accepting[i]) {
+                accept[(i + 1) >>> 6] |= 1L << (i + 1);
+            }
+        }
+        if (dfa.patterns.isEmpty()) {
+            this.patterns = null;
+        } else {
+            this.patterns = new int[stateCount][];
+            this.patterns[DEAD] = new int[0];
+            for (int i = 0; i + 1 < stateCount; i++) {
+                this.patterns[i + 1] = dfa.patternsOf(i);
+            }
+        }
+    }
+
+    //由已经编号的各部分直接构造
+    CompiledDFA(String[] symbols, int stateCount, int start, int[] table, long[] accept) {
+        super(symbols, stateCount, start);
+        this.table = table;
+        this.accept = accept;
+        this.patterns = null;
+    }
+
+    //DFA中下标为i的状态编号为i + 1，没有起始状态时从死状态开始
+    private static int startOf(DFA dfa) {
+        int startIndex = dfa.indexOf(dfa.start);
+        return startIndex < 0 ? DEAD : startIndex + 1;
+    }
+
+    //状态经由字符转移后的状态
+    int next(int state, char c) {
+        return table[state * width + column(c)];
+    }
+
+    @Override
+    int transition(int state, int column) {
+        return table[state * width + column];
+    }
+
+    @Override
+    boolean isAccepting(int state) {
+        return (accept[state >>> 6] & (1L << state)) != 0;
+    }
+
+    //保存为二进制文件，可以用MappedDFA.open直接映射到内存中运行
+    public void save(Path path) throws IOException {
+        byte[][] names = new byte[symbols.length][];
+        long size = HEADER_SIZE;
+        for (int c = 0; c < symbols.length; c++) {
+            names[c] = symbols[c].getBytes(StandardCharsets.UTF_8);
+            size += 4 + names[c].length;
+        }
+        long tableOffset = align(size);
+        long acceptOffset = align(tableOffset + 4L * table.length);
+        size = acceptOffset + 8L * accept.length;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("DFA过大，无法保存为单个映射文件：" + size + "字节");
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw");
+             FileChannel channel = file.getChannel()) {
+            file.setLength(size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(stateCount).putInt(symbols.length).putInt(start)
+                    .putInt((int) tableOffset).putInt((int) acceptOffset);
+            for (byte[] name : names) {
+                buffer.putInt(name.length).put(name);
+            }
+            buffer.position((int) tableOffset);
+            buffer.asIntBuffer().put(table);
+            buffer.position((int) acceptOffset);
+            buffer.asLongBuffer().put(accept);
+            buffer.force();
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    //运行一遍DFA，返回整个字符串匹配的所有模式编号（升序），调用方不应修改返回的数组
+    //DFA没有模式标记时，字符串被接受则返回{0}
+    public int[] matchingPatterns(CharSequence input) {
+        int state = start;
+        for (int i = 0, n = input.length(); i < n && state != DEAD; i++) {
+            state = table[state * width + column(input.charAt(i))];
+        }
+        if (patterns != null) {
+            return patterns[state];
+        }
+        return isAccepting(state) ? new int[]{0} : new int[0];
+    }
+}
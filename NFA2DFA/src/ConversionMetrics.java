@@ -0,0 +1,123 @@
+//NFA转DFA的度量：ε闭包、move、查重各自的耗时，每个广度优先层次发现的DFA状态数和转移数，最大的NFA状态子集
+//把ConversionMetrics传给NFA.buildDFA即可收集；没有传入且JFR没有开启DFAConversion事件时不做任何计时
+
+import jdk.jfr.*;
+
+import java.util.*;
+
+class ConversionMetrics {
+    public long closureNanos; //求ε闭包的时间，包括一次性计算所有ε闭包
+    public long moveNanos; //求move的时间
+    public long dedupNanos; //在状态表中查重和生成新状态的时间
+    public long totalNanos; //子集构造的总时间
+    public int nfaStates; //NFA状态数
+    public int dfaStates; //DFA状态数
+    public int dfaTransitions; //DFA转移函数个数
+    public int peakSubsetSize; //最大的NFA状态子集大小
+    public final ArrayList<Integer> levelStates = new ArrayList<>(); //每个层次展开时新发现的DFA状态数
+    public final ArrayList<Integer> levelTransitions = new ArrayList<>(); //每个层次展开时添加的转移函数个数
+
+    //JFR是否开启了子集构造事件
+    static boolean eventsEnabled() {
+        return new DFAConversionEvent().isEnabled();
+    }
+
+    void addLevel(int states, int transitions) {
+        levelStates.add(states);
+        levelTransitions.add(transitions);
+    }
+
+    //提交JFR事件：每个层次一个DFALevelEvent，整个构造一个DFAConversionEvent
+    void commitEvents() {
+        for (int level = 0; level < levelStates.size(); level++) {
+            DFALevelEvent event = new DFALevelEvent();
+            if (!event.isEnabled()) {
+                break;
+            }
+            event.level = level;
+            event.states = levelStates.get(level);
+            event.transitions = levelTransitions.get(level);
+            event.commit();
+        }
+        DFAConversionEvent event = new DFAConversionEvent();
+        if (event.isEnabled()) {
+            event.closureNanos = closureNanos;
+            event.moveNanos = moveNanos;
+            event.dedupNanos = dedupNanos;
+            event.totalNanos = totalNanos;
+            event.nfaStates = nfaStates;
+            event.dfaStates = dfaStates;
+            event.dfaTransitions = dfaTransitions;
+            event.peakSubsetSize = peakSubsetSize;
+            event.levels = levelStates.size();
+            event.commit();
+        }
+    }
+
+    public void print() {
+        System.out.println("NFA状态数：" + nfaStates);
+        System.out.println("DFA状态数：" + dfaStates);
+        System.out.println("DFA转移函数个数：" + dfaTransitions);
+        System.out.println("最大子集大小：" + peakSubsetSize);
+        System.out.println("ε闭包耗时：" + closureNanos / 1000 + "微秒");
+        System.out.println("move耗时：" + moveNanos / 1000 + "微秒");
+        System.out.println("查重耗时：" + dedupNanos / 1000 + "微秒");
+        System.out.println("总耗时：" + totalNanos / 1000 + "微秒");
+        System.out.println("每层新发现的状态数和转移函数个数：");
+        for (int level = 0; level < levelStates.size(); level++) {
+            System.out.println(level + ": " + levelStates.get(level) + " " + levelTransitions.get(level));
+        }
+    }
+}
+
+//一次子集构造的汇总
+@Name("nfa2dfa.DFAConversion")
+@Label("NFA转DFA")
+@Category("NFA2DFA")
+class DFAConversionEvent extends Event {
+    @Label("ε闭包耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long closureNanos;
+
+    @Label("move耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long moveNanos;
+
+    @Label("查重耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long dedupNanos;
+
+    @Label("总耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long totalNanos;
+
+    @Label("NFA状态数")
+    int nfaStates;
+
+    @Label("DFA状态数")
+    int dfaStates;
+
+    @Label("DFA转移函数个数")
+    int dfaTransitions;
+
+    @Label("最大子集大小")
+    int peakSubsetSize;
+
+    @Label("层数")
+    int levels;
+}
+
+//子集构造中一个广度优先层次的展开结果
+@Name("nfa2dfa.DFALevel")
+@Label("子集构造层次")
+@Category("NFA2DFA")
+class DFALevelEvent extends Event {
+    @Label("层次")
+    int level;
+
+    @Label("新发现的状态数")
+    int states;
+
+    @Label("添加的转移函数个数")
+    int transitions;
+}
@@ -0,0 +1,256 @@
+//DFA导出：以文本、Graphviz DOT或JSON格式输出DFA，全部经由同一个带缓冲的Writer写出
+//状态用A、B、...、Z、AA、AB、...命名，转移函数的起点和终点直接用其中记录的下标，不再在状态集合中查找
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.*;
+
+class DFAExporter {
+    //输出格式
+    enum Format {
+        TEXT, DOT, JSON
+    }
+
+    private final DFA dfa;
+    private final BufferedWriter out;
+    private final char[] name = new char[8]; //状态名缓冲区，7个字母足够表示26^7个状态
+
+    private DFAExporter(DFA dfa, Writer out) {
+        this.dfa = dfa;
+        this.out = out instanceof BufferedWriter ? (BufferedWriter) out : new BufferedWriter(out, 1 << 16);
+    }
+
+    //按指定格式写出DFA，写完后刷新缓冲区但不关闭out
+    public static void export(DFA dfa, Format format, Writer out) throws IOException {
+        DFAExporter exporter = new DFAExporter(dfa, out);
+        switch (format) {
+            case TEXT:
+                exporter.writeText();
+                break;
+            case DOT:
+                exporter.writeDot();
+                break;
+            case JSON:
+                exporter.writeJson();
+                break;
+        }
+        exporter.out.flush();
+    }
+
+    //写到System.out的Writer：字符交给System.out按它自己的编码转换，与System.out.println的输出一致
+    //new OutputStreamWriter(System.out)使用默认字符集，与控制台编码不同时中文会乱码
+    public static Writer console() {
+        return new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+                System.out.append(CharBuffer.wrap(buffer, offset, length));
+            }
+
+            @Override
+            public void flush() {
+                System.out.flush();
+            }
+
+            @Override
+            public void close() {
+                flush();
+            }
+        };
+    }
+
+    //写出下标为index的状态名：A..Z, AA..ZZ, AAA..，即不含0的26进制，index必须是有效的下标
+    private void writeName(int index) throws IOException {
+        int length = 0;
+        for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+            name[name.length - 1 - length++] = (char) ('A' + (i - 1) % 26);
+        }
+        out.write(name, name.length - length, length);
+    }
+
+    //文本格式，与printDFA2相同：状态集合、字母表、起始状态、终止状态、转移函数
+    private void writeText() throws IOException {
+        out.write("状态集合：");
+        out.newLine();
+        for (int i = 0; i < dfa.states.size(); i++) {
+            writeName(i);
+            out.write(" = ");
+            for (Integer integer : dfa.states.get(i)) {
+                out.write(Integer.toString(integer));
+                out.write(' ');
+            }
+            out.newLine();
+        }
+        out.newLine();
+        out.write("字母表：");
+        out.newLine();
+        for (String string : dfa.alphabet) {
+            out.write(string);
+            out.write(' ');
+        }
+        out.newLine();
+        out.newLine();
+        out.write("起始状态：");
+        out.newLine();
+        int start = dfa.indexOf(dfa.start);
+        if (start >= 0) {
+            writeName(start);
+            out.write(' ');
+        }
+        out.newLine();
+        out.newLine();
+        out.write("终止状态：");
+        out.newLine();
+        for (ArrayList<Integer> state : dfa.end) {
+            writeName(dfa.indexOf(state));
+            out.write(' ');
+            out.newLine();
+        }
+        out.newLine();
+        out.write("转移函数：");
+        out.newLine();
+        for (DFATransition transition : dfa.transitions) {
+            writeName(dfa.fromIndex(transition));
+            out.write(' ');
+            out.write(transition.ch);
+            out.write(' ');
+            writeName(dfa.toIndex(transition));
+            out.newLine();
+        }
+    }
+
+    //Graphviz DOT格式，终止状态画成双圈
+    private void writeDot() throws IOException {
+        boolean[] accepting = dfa.accepting();
+        out.write("digraph DFA {");
+        out.newLine();
+        out.write("    rankdir=LR;");
+        out.newLine();
+        //没有起始状态时不画起始箭头
+        int start = dfa.indexOf(dfa.start);
+        if (start >= 0) {
+            out.write("    __start [shape=point];");
+            out.newLine();
+        }
+        for (int i = 0; i < dfa.states.size(); i++) {
+            out.write("    ");
+            writeName(i);
+            out.write(accepting[i] ? " [shape=doublecircle, label=\"" : " [shape=circle, label=\"");
+            writeName(i);
+            out.write("\\n{");
+            ArrayList<Integer> state = dfa.states.get(i);
+            for (int j = 0; j < state.size(); j++) {
+                if (j > 0) {
+                    out.write(',');
+                }
+                out.write(Integer.toString(state.get(j)));
+            }
+            out.write("}\"];");
+            out.newLine();
+        }
+        if (start >= 0) {
+            out.write("    __start -> ");
+            writeName(start);
+            out.write(';');
+            out.newLine();
+        }
+        for (DFATransition transition : dfa.transitions) {
+            out.write("    ");
+            writeName(dfa.fromIndex(transition));
+            out.write(" -> ");
+            writeName(dfa.toIndex(transition));
+            out.write(" [label=");
+            writeString(transition.ch);
+            out.write("];");
+            out.newLine();
+        }
+        out.write('}');
+        out.newLine();
+    }
+
+    //JSON格式，状态以名字引用
+    private void writeJson() throws IOException {
+        boolean[] accepting = dfa.accepting();
+        out.write("{\"alphabet\":[");
+        for (int i = 0; i < dfa.alphabet.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeString(dfa.alphabet.get(i));
+        }
+        //没有起始状态时start为null
+        int start = dfa.indexOf(dfa.start);
+        if (start >= 0) {
+            out.write("],\"start\":\"");
+            writeName(start);
+            out.write("\",\"states\":[");
+        } else {
+            out.write("],\"start\":null,\"states\":[");
+        }
+        for (int i = 0; i < dfa.states.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.newLine();
+            out.write("{\"name\":\"");
+            writeName(i);
+            out.write("\",\"nfaStates\":[");
+            ArrayList<Integer> state = dfa.states.get(i);
+            for (int j = 0; j < state.size(); j++) {
+                if (j > 0) {
+                    out.write(',');
+                }
+                out.write(Integer.toString(state.get(j)));
+            }
+            out.write("],\"accepting\":");
+            out.write(accepting[i] ? "true" : "false");
+            if (!dfa.patterns.isEmpty()) {
+                out.write(",\"patterns\":[");
+                int[] patterns = dfa.patternsOf(i);
+                for (int j = 0; j < patterns.length; j++) {
+                    if (j > 0) {
+                        out.write(',');
+                    }
+                    out.write(Integer.toString(patterns[j]));
+                }
+                out.write(']');
+            }
+            out.write('}');
+        }
+        out.write("],\"transitions\":[");
+        for (int i = 0; i < dfa.transitions.size(); i++) {
+            DFATransition transition = dfa.transitions.get(i);
+            if (i > 0) {
+                out.write(',');
+            }
+            out.newLine();
+            out.write("{\"from\":\"");
+            writeName(dfa.fromIndex(transition));
+            out.write("\",\"symbol\":");
+            writeString(transition.ch);
+            out.write(",\"to\":\"");
+            writeName(dfa.toIndex(transition));
+            out.write("\"}");
+        }
+        out.write("]}");
+        out.newLine();
+    }
+
+    //写出带引号的字符串，转义引号、反斜杠和控制字符，DOT和JSON都适用
+    private void writeString(String s) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,278 @@
+//DFA最小化：Hopcroft划分细化算法，时间复杂度O(n·k·log n)
+
+import java.util.*;
+
+class DFAMinimizer {
+    //最小化结果
+    static class Result {
+        public final DFA dfa; //最小化后的DFA
+        public final int statesBefore; //最小化前的状态数
+        public final int statesAfter; //最小化后的状态数
+
+        Result(DFA dfa, int statesBefore, int statesAfter) {
+            this.dfa = dfa;
+            this.statesBefore = statesBefore;
+            this.statesAfter = statesAfter;
+        }
+
+        //打印最小化前后的状态数
+        public void printReport() {
+            System.out.println("最小化前状态数：" + statesBefore);
+            System.out.println("最小化后状态数：" + statesAfter);
+        }
+    }
+
+    private final DFA dfa;
+    private final ArrayList<String> symbols; //去掉ε后的字母表，对应转移表的列
+    private final int k; //字符数
+    private final int n; //状态数，包括补上的死状态
+    private final int dead; //死状态下标，部分转移函数中缺失的转移都指向它
+    private final int[] table; //完全的转移表，table[i * k + c]
+    private final int start;
+
+    //划分：elements[first[b], end[b])为块b中的状态，marked[b]为块b中被标记的状态数，被标记的状态排在块的前面
+    private int[] elements;
+    private int[] location; //状态在elements中的位置
+    private int[] blockOf; //状态所在的块
+    private int[] first;
+    private int[] end;
+    private int[] marked;
+    private int blockCount;
+
+    DFAMinimizer(DFA dfa) {
+        this.dfa = dfa;
+        this.symbols = dfa.symbols();
+        this.k = symbols.size();
+        int original = dfa.states.size();
+        int[] partial = dfa.transitionTable(symbols);
+        //补上死状态，使转移函数完全
+        this.dead = original;
+        this.n = original + 1;
+        this.table = new int[n * k];
+        for (int i = 0; i < n * k; i++) {
+            table[i] = i < partial.length && partial[i] >= 0 ? partial[i] : dead;
+        }
+        int startIndex = dfa.indexOf(dfa.start);
+        this.start = startIndex < 0 ? dead : startIndex;
+    }
+
+    Result minimize() {
+        boolean[] accepting = Arrays.copyOf(dfa.accepting(), n);
+        //只保留从起始状态可达的状态（死状态总是保留）
+        boolean[] reachable = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        reachable[start] = true;
+        queue[tail++] = start;
+        if (!reachable[dead]) {
+            reachable[dead] = true;
+            queue[tail++] = dead;
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int c = 0; c < k; c++) {
+                int target = table[state * k + c];
+                if (!reachable[target]) {
+                    reachable[target] = true;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        initPartition(queue, tail, accepting);
+        refine(queue, tail);
+        return build(accepting);
+    }
+
+    //初始划分：非终止状态一块，终止状态按匹配的模式编号分块（没有模式标记时所有终止状态一块）
+    private void initPartition(int[] states, int count, boolean[] accepting) {
+        elements = new int[count];
+        location = new int[n];
+        blockOf = new int[n];
+        first = new int[count + 1];
+        end = new int[count + 1];
+        marked = new int[count + 1];
+        Arrays.fill(blockOf, -1);
+        Integer[] sorted = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = states[i];
+        }
+        Comparator<Integer> byClass = (a, b) -> accepting[a] != accepting[b]
+                ? Boolean.compare(accepting[a], accepting[b])
+                : Arrays.compare(patternsOf(a), patternsOf(b));
+        Arrays.sort(sorted, byClass);
+        for (int i = 0; i < count; i++) {
+            int state = sorted[i];
+            if (i == 0 || byClass.compare(sorted[i - 1], state) != 0) {
+                if (i > 0) {
+                    end[blockCount - 1] = i;
+                }
+                first[blockCount++] = i;
+            }
+            location[state] = i;
+            elements[i] = state;
+            blockOf[state] = blockCount - 1;
+        }
+        end[blockCount - 1] = count;
+    }
+
+    //状态匹配的模式编号，死状态没有
+    private int[] patternsOf(int state) {
+        return state == dead ? new int[0] : dfa.patternsOf(state);
+    }
+
+    //Hopcroft划分细化：用块作为分割者，按每个字符的前驱集合拆分其他块
+    private void refine(int[] states, int count) {
+        //逆转移表：predecessors[predStart[c * n + q], predStart[c * n + q + 1])为经由字符c转移到q的可达状态
+        int[] predStart = new int[n * k + 1];
+        for (int i = 0; i < count; i++) {
+            int state = states[i];
+            for (int c = 0; c < k; c++) {
+                predStart[c * n + table[state * k + c] + 1]++;
+            }
+        }
+        for (int i = 0; i < n * k; i++) {
+            predStart[i + 1] += predStart[i];
+        }
+        int[] predecessors = new int[predStart[n * k]];
+        int[] fill = Arrays.copyOf(predStart, n * k);
+        for (int i = 0; i < count; i++) {
+            int state = states[i];
+            for (int c = 0; c < k; c++) {
+                predecessors[fill[c * n + table[state * k + c]]++] = state;
+            }
+        }
+        //待处理的分割者队列，初始时除最大块外的所有块入队
+        int[] waiting = new int[count + 1];
+        boolean[] inWaiting = new boolean[count + 1];
+        int waitingSize = 0;
+        int largest = 0;
+        for (int b = 1; b < blockCount; b++) {
+            if (end[b] - first[b] > end[largest] - first[largest]) {
+                largest = b;
+            }
+        }
+        for (int b = 0; b < blockCount; b++) {
+            if (b != largest) {
+                waiting[waitingSize++] = b;
+                inWaiting[b] = true;
+            }
+        }
+        int[] splitter = new int[count];
+        int[] touched = new int[count + 1];
+        while (waitingSize > 0) {
+            int block = waiting[--waitingSize];
+            inWaiting[block] = false;
+            //处理过程中分割者自身也可能被拆分，先保存其中的状态
+            int splitterSize = end[block] - first[block];
+            System.arraycopy(elements, first[block], splitter, 0, splitterSize);
+            for (int c = 0; c < k; c++) {
+                int touchedCount = 0;
+                for (int i = 0; i < splitterSize; i++) {
+                    int q = splitter[i];
+                    for (int j = predStart[c * n + q]; j < predStart[c * n + q + 1]; j++) {
+                        int p = predecessors[j];
+                        int b = blockOf[p];
+                        if (marked[b] == 0) {
+                            touched[touchedCount++] = b;
+                        }
+                        //把p交换到块b的已标记部分末尾
+                        int target = first[b] + marked[b];
+                        int other = elements[target];
+                        elements[location[p]] = other;
+                        location[other] = location[p];
+                        elements[target] = p;
+                        location[p] = target;
+                        marked[b]++;
+                    }
+                }
+                for (int t = 0; t < touchedCount; t++) {
+                    int b = touched[t];
+                    int markedCount = marked[b];
+                    marked[b] = 0;
+                    if (markedCount == end[b] - first[b]) {
+                        continue;
+                    }
+                    //已标记的部分成为新块
+                    int newBlock = blockCount++;
+                    first[newBlock] = first[b];
+                    end[newBlock] = first[b] + markedCount;
+                    first[b] = end[newBlock];
+                    for (int i = first[newBlock]; i < end[newBlock]; i++) {
+                        blockOf[elements[i]] = newBlock;
+                    }
+                    if (inWaiting[b]) {
+                        waiting[waitingSize++] = newBlock;
+                        inWaiting[newBlock] = true;
+                    } else {
+                        int smaller = markedCount <= end[b] - first[b] ? newBlock : b;
+                        waiting[waitingSize++] = smaller;
+                        inWaiting[smaller] = true;
+                    }
+                }
+            }
+        }
+    }
+
+    //由最终划分构造新的DFA：死状态所在的块被去掉，其余块按从起始块出发的广度优先顺序编号
+    //每个块用其中下标最小的原状态作为代表
+    private Result build(boolean[] accepting) {
+        int deadBlock = blockOf[dead];
+        int[] representative = new int[blockCount];
+        Arrays.fill(representative, -1);
+        for (int b = 0; b < blockCount; b++) {
+            for (int i = first[b]; i < end[b]; i++) {
+                int state = elements[i];
+                if (state != dead && (representative[b] < 0 || state < representative[b])) {
+                    representative[b] = state;
+                }
+            }
+        }
+        DFA result = new DFA();
+        result.alphabet = new ArrayList<>(dfa.alphabet);
+        int[] newIndex = new int[blockCount];
+        Arrays.fill(newIndex, -1);
+        int[] order = new int[blockCount];
+        int count = 0;
+        int startBlock = blockOf[start];
+        if (startBlock == deadBlock) {
+            //语言为空：只保留起始状态
+            result.start = new ArrayList<>(dfa.start);
+            result.states.add(result.start);
+            return new Result(result, dfa.states.size(), 1);
+        }
+        newIndex[startBlock] = count;
+        order[count++] = startBlock;
+        for (int i = 0; i < count; i++) {
+            int state = representative[order[i]];
+            for (int c = 0; c < k; c++) {
+                int b = blockOf[table[state * k + c]];
+                if (b != deadBlock && newIndex[b] < 0) {
+                    newIndex[b] = count;
+                    order[count++] = b;
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            result.states.add(new ArrayList<>(dfa.states.get(representative[order[i]])));
+            if (!dfa.patterns.isEmpty()) {
+                result.patterns.add(dfa.patterns.get(representative[order[i]]));
+            }
+        }
+        result.start = result.states.get(0);
+        for (int i = 0; i < count; i++) {
+            int state = representative[order[i]];
+            if (accepting[state]) {
+                result.end.add(result.states.get(i));
+            }
+            for (int c = 0; c < k; c++) {
+                int b = blockOf[table[state * k + c]];
+                if (b != deadBlock) {
+                    int to = newIndex[b];
+                    result.transitions.add(new DFATransition(result.states.get(i), symbols.get(c), result.states.get(to), i, to));
+                }
+            }
+        }
+        return new Result(result, dfa.states.size(), count);
+    }
+}
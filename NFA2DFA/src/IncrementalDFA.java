@@ -0,0 +1,386 @@
+//增量维护的DFA：保留子集构造的状态（子集 -> 编号的哈希表和每个子集经由每个字符的后继），
+//NFA增删非ε转移时原地修改NFA的邻接索引，只重新计算子集中含有该转移起点的DFA状态经由该字符的后继，新出现的子集再展开
+//含有某个NFA状态的子集由按NFA状态建立的反向索引直接找到，不遍历所有子集
+//每个子集记录被多少个后继（以及起始状态）引用，引用数降为0的子集立即回收，并沿它的后继继续回收；
+//只被不可达的环引用的子集引用数不会降为0，等子集数翻倍或查询状态数时再从起始状态标记一遍回收
+//增删ε转移会改变ε闭包，从而改变所有子集本身，此时整体重建；修改起始状态后也需要调用rebuild
+//修改终止状态不影响子集构造，toDFA时才计算终止状态
+//NFA的转移函数应只经由本类增删，删除时用最后一个转移函数填补空位，转移函数集合的顺序会改变
+
+import java.util.*;
+
+class IncrementalDFA {
+    //转移函数的哈希键，起点、转移字符和终点都相同的转移函数视为同一个
+    private static final class Edge {
+        final int from;
+        final String ch;
+        final int to;
+
+        Edge(NFATransition transition) {
+            this.from = transition.from;
+            this.ch = transition.ch;
+            this.to = transition.to;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Edge) {
+                Edge edge = (Edge) obj;
+                return from == edge.from && to == edge.to && ch.equals(edge.ch);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(from, ch, to);
+        }
+    }
+
+    private final NFA nfa;
+    private final HashMap<StateSet, Integer> ids = new HashMap<>(); //子集 -> 编号
+    private final ArrayList<StateSet> sets = new ArrayList<>(); //编号 -> 子集，已回收的编号为null
+    private final ArrayList<int[]> rows = new ArrayList<>(); //编号 -> 经由每个字符（NFA的字符编号）的后继编号，后继为空集时为-1
+    private final ArrayList<HashSet<Integer>> containing = new ArrayList<>(); //NFA状态编号 -> 含有该状态的子集编号
+    private final HashMap<Edge, ArrayList<Integer>> positions = new HashMap<>(); //转移函数 -> 在nfa.transitions中的位置
+    private final HashSet<Integer> stateSet = new HashSet<>(); //nfa.states中的状态，避免在列表上线性查找
+    private final HashSet<String> alphabetSet = new HashSet<>(); //nfa.alphabet中的字符
+    private final ArrayList<Integer> freeIds = new ArrayList<>(); //已回收、可以重新使用的编号
+    private final ArrayList<Integer> pending = new ArrayList<>(); //新出现、还没有展开的子集
+    private final ArrayList<Integer> orphans = new ArrayList<>(); //引用数降为0、等待回收的子集
+    private int[] refs = new int[16]; //编号 -> 被后继和起始状态引用的次数
+    private int start; //起始子集的编号
+    private int words; //位集合的long个数
+    private int symbolCount; //字符数
+    private int recomputed; //上一次修改重新计算的后继个数
+    private boolean cyclic; //有子集的引用数减少后仍不为0，可能只被不可达的环引用
+    private int collectLimit; //子集数达到该值时从起始子集标记一遍，回收不可达的环
+
+    public IncrementalDFA(NFA nfa) {
+        this.nfa = nfa;
+        rebuild();
+    }
+
+    //丢弃所有状态，重新做一遍子集构造
+    public void rebuild() {
+        ids.clear();
+        sets.clear();
+        rows.clear();
+        containing.clear();
+        freeIds.clear();
+        pending.clear();
+        orphans.clear();
+        Arrays.fill(refs, 0);
+        positions.clear();
+        for (int i = 0; i < nfa.transitions.size(); i++) {
+            positions.computeIfAbsent(new Edge(nfa.transitions.get(i)), edge -> new ArrayList<>()).add(i);
+        }
+        stateSet.clear();
+        stateSet.addAll(nfa.states);
+        alphabetSet.clear();
+        alphabetSet.addAll(nfa.alphabet);
+        words = nfa.wordCount();
+        symbolCount = nfa.symbolCount();
+        recomputed = 0;
+        cyclic = false;
+        start = intern(nfa.startSet());
+        refs[start]++;
+        expand();
+        collectLimit = Math.max(2 * ids.size(), 64);
+    }
+
+    //添加一个转移函数
+    public void addTransition(NFATransition transition) {
+        positions.computeIfAbsent(new Edge(transition), edge -> new ArrayList<>()).add(nfa.transitions.size());
+        nfa.addEdge(transition);
+        if (stateSet.add(transition.from)) {
+            nfa.states.add(transition.from);
+        }
+        if (stateSet.add(transition.to)) {
+            nfa.states.add(transition.to);
+        }
+        if (alphabetSet.add(transition.ch)) {
+            nfa.alphabet.add(transition.ch);
+        }
+        update(transition);
+    }
+
+    //删除一个起点、转移字符和终点都相同的转移函数，不存在时返回false
+    public boolean removeTransition(NFATransition transition) {
+        Edge edge = new Edge(transition);
+        ArrayList<Integer> list = positions.get(edge);
+        if (list == null) {
+            return false;
+        }
+        int position = list.remove(list.size() - 1);
+        if (list.isEmpty()) {
+            positions.remove(edge);
+        }
+        //最后一个转移函数将移到被删除的位置
+        int last = nfa.transitions.size() - 1;
+        if (position != last) {
+            ArrayList<Integer> moved = positions.get(new Edge(nfa.transitions.get(last)));
+            moved.set(moved.lastIndexOf(last), position);
+        }
+        nfa.removeEdge(position);
+        update(transition);
+        return true;
+    }
+
+    //DFA状态数，先回收只被不可达的环引用的子集
+    public int stateCount() {
+        if (cyclic) {
+            collect();
+        }
+        return ids.size();
+    }
+
+    //上一次修改重新计算的后继个数，整体重建时为所有后继的个数
+    public int recomputed() {
+        return recomputed;
+    }
+
+    private void update(NFATransition transition) {
+        if (transition.ch.equals(NFA.EPSILON)) {
+            rebuild();
+            return;
+        }
+        recomputed = 0;
+        if (nfa.wordCount() != words) {
+            resize(nfa.wordCount());
+        }
+        if (nfa.symbolCount() != symbolCount) {
+            symbolCount = nfa.symbolCount();
+            for (int id = 0; id < rows.size(); id++) {
+                int[] row = rows.get(id);
+                if (row != null) {
+                    int old = row.length;
+                    row = Arrays.copyOf(row, symbolCount);
+                    Arrays.fill(row, old, symbolCount, -1);
+                    rows.set(id, row);
+                }
+            }
+        }
+        int from = nfa.indexOf(transition.from);
+        int symbol = nfa.symbolId(transition.ch);
+        if (from < 0 || symbol < 0 || from >= containing.size()) {
+            return;
+        }
+        //只有含有起点的子集经由该字符的后继会改变，计算后继时会加入新子集，先取出编号
+        HashSet<Integer> owners = containing.get(from);
+        int[] affected = new int[owners.size()];
+        int count = 0;
+        for (int id : owners) {
+            affected[count++] = id;
+        }
+        for (int id : affected) {
+            link(id, symbol, successor(sets.get(id).words, symbol));
+            recomputed++;
+        }
+        expand();
+        release();
+        if (ids.size() >= collectLimit) {
+            collect();
+        }
+    }
+
+    //状态数增加到需要更多的long时，补齐所有子集的位集合并重建哈希表
+    private void resize(int newWords) {
+        words = newWords;
+        ids.clear();
+        for (int id = 0; id < sets.size(); id++) {
+            StateSet set = sets.get(id);
+            if (set != null) {
+                StateSet resized = new StateSet(Arrays.copyOf(set.words, newWords));
+                sets.set(id, resized);
+                ids.put(resized, id);
+            }
+        }
+    }
+
+    //子集经由字符symbol的后继编号
+    private int successor(long[] set, int symbol) {
+        long[] next = new long[words];
+        nfa.moveClosure(set, symbol, next);
+        return StateSet.isEmpty(next) ? -1 : intern(next);
+    }
+
+    private int intern(long[] set) {
+        StateSet key = new StateSet(set);
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        int[] row = new int[symbolCount];
+        Arrays.fill(row, -1);
+        if (freeIds.isEmpty()) {
+            id = sets.size();
+            sets.add(key);
+            rows.add(row);
+            if (id == refs.length) {
+                refs = Arrays.copyOf(refs, 2 * id);
+            }
+        } else {
+            id = freeIds.remove(freeIds.size() - 1);
+            sets.set(id, key);
+            rows.set(id, row);
+        }
+        ids.put(key, id);
+        for (int w = 0; w < set.length; w++) {
+            long word = set[w];
+            while (word != 0) {
+                int x = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                while (containing.size() <= x) {
+                    containing.add(new HashSet<>());
+                }
+                containing.get(x).add(id);
+            }
+        }
+        pending.add(id);
+        return id;
+    }
+
+    //求出所有新子集经由每个字符的后继
+    private void expand() {
+        while (!pending.isEmpty()) {
+            int id = pending.remove(pending.size() - 1);
+            long[] set = sets.get(id).words;
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                link(id, symbol, successor(set, symbol));
+                recomputed++;
+            }
+        }
+    }
+
+    //把子集id经由字符symbol的后继改为next，同时调整新旧后继的引用数
+    private void link(int id, int symbol, int next) {
+        int[] row = rows.get(id);
+        int old = row[symbol];
+        if (old == next) {
+            return;
+        }
+        row[symbol] = next;
+        if (next >= 0) {
+            refs[next]++;
+        }
+        if (old >= 0) {
+            if (--refs[old] == 0) {
+                orphans.add(old);
+            } else {
+                cyclic = true;
+            }
+        }
+    }
+
+    //回收引用数降为0的子集，并沿它们的后继继续回收
+    //展开新子集时可能重新引用了等待回收的子集，所以回收前再检查一次引用数
+    private void release() {
+        while (!orphans.isEmpty()) {
+            int id = orphans.remove(orphans.size() - 1);
+            if (refs[id] != 0 || sets.get(id) == null) {
+                continue;
+            }
+            int[] row = rows.get(id);
+            free(id);
+            for (int next : row) {
+                if (next >= 0) {
+                    if (--refs[next] == 0) {
+                        orphans.add(next);
+                    } else {
+                        cyclic = true;
+                    }
+                }
+            }
+        }
+    }
+
+    //从起始子集标记一遍，回收不可达的子集，包括引用计数无法回收的环
+    private void collect() {
+        boolean[] reachable = new boolean[sets.size()];
+        int[] stack = new int[sets.size()];
+        int sp = 0;
+        reachable[start] = true;
+        stack[sp++] = start;
+        while (sp > 0) {
+            for (int next : rows.get(stack[--sp])) {
+                if (next >= 0 && !reachable[next]) {
+                    reachable[next] = true;
+                    stack[sp++] = next;
+                }
+            }
+        }
+        //先撤销不可达子集对可达子集的引用，再回收
+        for (int id = 0; id < reachable.length; id++) {
+            if (!reachable[id] && sets.get(id) != null) {
+                for (int next : rows.get(id)) {
+                    if (next >= 0) {
+                        refs[next]--;
+                    }
+                }
+            }
+        }
+        for (int id = 0; id < reachable.length; id++) {
+            if (!reachable[id] && sets.get(id) != null) {
+                free(id);
+            }
+        }
+        cyclic = false;
+        collectLimit = Math.max(2 * ids.size(), 64);
+    }
+
+    //回收编号id，从哈希表和按NFA状态的反向索引中删除
+    private void free(int id) {
+        StateSet set = sets.get(id);
+        ids.remove(set);
+        for (int w = 0; w < set.words.length; w++) {
+            long word = set.words[w];
+            while (word != 0) {
+                containing.get((w << 6) + Long.numberOfTrailingZeros(word)).remove(id);
+                word &= word - 1;
+            }
+        }
+        sets.set(id, null);
+        rows.set(id, null);
+        refs[id] = 0;
+        freeIds.add(id);
+    }
+
+    //生成与nfa.buildDFA()相同的DFA：从起始子集出发按字母表的顺序广度优先编号
+    public DFA toDFA() {
+        DFA dfa = new DFA();
+        dfa.alphabet = nfa.alphabet;
+        int[] symbols = new int[dfa.alphabet.size()];
+        for (int k = 0; k < symbols.length; k++) {
+            symbols[k] = nfa.symbolId(dfa.alphabet.get(k));
+        }
+        int[] number = new int[sets.size()];
+        Arrays.fill(number, -1);
+        ArrayList<Integer> order = new ArrayList<>();
+        ArrayList<StateSet> ordered = new ArrayList<>();
+        number[start] = 0;
+        order.add(start);
+        ordered.add(sets.get(start));
+        dfa.start = nfa.toStateList(sets.get(start).words);
+        dfa.states.add(dfa.start);
+        for (int i = 0; i < order.size(); i++) {
+            int[] row = rows.get(order.get(i));
+            for (int k = 0; k < symbols.length; k++) {
+                if (symbols[k] < 0 || row[symbols[k]] < 0) {
+                    continue;
+                }
+                int next = row[symbols[k]];
+                if (number[next] < 0) {
+                    number[next] = order.size();
+                    order.add(next);
+                    ordered.add(sets.get(next));
+                    dfa.states.add(nfa.toStateList(sets.get(next).words));
+                }
+                int j = number[next];
+                dfa.transitions.add(new DFATransition(dfa.states.get(i), dfa.alphabet.get(k), dfa.states.get(j), i, j));
+            }
+        }
+        nfa.addEndStates(dfa, ordered);
+        return dfa;
+    }
+}
@@ -0,0 +1,149 @@
+//惰性DFA：只在输入走到某个DFA状态时才构造它，已构造的状态保存在有容量上限的缓存中
+//适用于子集构造会指数爆炸的NFA（例如“倒数第n个字符是a”），内存可预测，吞吐量接近DFA
+
+import java.util.*;
+
+class LazyDFA {
+    //缓存中的DFA状态
+    private static final class State {
+        final StateSet set; //对应的NFA状态子集
+        final boolean accepting; //是否为终止状态
+        final State[] next; //按字符编号缓存的后继状态，null表示尚未计算
+
+        State(StateSet set, boolean accepting, int symbolCount) {
+            this.set = set;
+            this.accepting = accepting;
+            this.next = new State[symbolCount];
+        }
+    }
+
+    //缓存清空后，如果两次清空之间平均每个状态处理的字符数少于该值，则认为缓存在抖动，改用NFA模拟
+    private static final int THRASH_FACTOR = 10;
+
+    private final NFA nfa;
+    private final int capacity; //缓存中最多的状态数
+    private final int words; //位集合的long个数
+    private final int symbolCount; //字符数
+    private final int[] charSymbols; //字符 -> 字符编号
+    private final long[] endSet; //NFA终止状态的位集合
+    private final State dead; //空子集，所有后继都是它自己，不放入缓存
+    private final HashMap<StateSet, State> cache = new HashMap<>();
+    private State startState;
+    private long charsSinceFlush; //上次清空缓存后处理的字符数
+    private int flushCount; //清空缓存的次数
+    private int fallbackCount; //改用NFA模拟的次数
+
+    //capacity为缓存中最多保存的DFA状态数
+    public LazyDFA(NFA nfa, int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("缓存容量至少为2：" + capacity);
+        }
+        this.nfa = nfa;
+        this.capacity = capacity;
+        this.words = nfa.wordCount();
+        this.charSymbols = nfa.charSymbols();
+        this.endSet = nfa.endSet();
+        this.symbolCount = nfa.symbolCount();
+        this.dead = new State(new StateSet(new long[words]), false, symbolCount);
+        Arrays.fill(dead.next, dead);
+        this.startState = intern(new StateSet(nfa.startSet()));
+    }
+
+    //整个字符串是否被NFA接受
+    //不是线程安全的，每个线程应使用自己的LazyDFA
+    public boolean matches(CharSequence input) {
+        State state = startState;
+        for (int i = 0, n = input.length(); i < n; i++) {
+            char c = input.charAt(i);
+            int symbol = c < charSymbols.length ? charSymbols[c] : -1;
+            if (symbol < 0) {
+                return false;
+            }
+            State next = state.next[symbol];
+            if (next == null) {
+                if (cache.size() >= capacity) {
+                    //第一次填满缓存时还没有清空过，不能据此判断抖动
+                    if (flushCount > 0 && charsSinceFlush < (long) THRASH_FACTOR * capacity) {
+                        fallbackCount++;
+                        return simulate(state.set.words, input, i);
+                    }
+                    flush();
+                    state = intern(state.set);
+                }
+                next = step(state, symbol);
+            }
+            state = next;
+            if (state == dead) {
+                return false;
+            }
+            charsSinceFlush++;
+        }
+        return state.accepting;
+    }
+
+    //计算并缓存state经由字符symbol的后继状态
+    private State step(State state, int symbol) {
+        long[] set = new long[words];
+        nfa.moveClosure(state.set.words, symbol, set);
+        State next = StateSet.isEmpty(set) ? dead : intern(new StateSet(set));
+        state.next[symbol] = next;
+        return next;
+    }
+
+    private State intern(StateSet set) {
+        State state = cache.get(set);
+        if (state == null) {
+            state = new State(set, set.intersects(endSet), symbolCount);
+            cache.put(set, state);
+        }
+        return state;
+    }
+
+    //清空缓存，旧状态之间的后继引用随之失效，起始状态重新放入缓存
+    private void flush() {
+        cache.clear();
+        flushCount++;
+        charsSinceFlush = 0;
+        startState = intern(startState.set);
+    }
+
+    //从位置from开始直接模拟NFA，不再缓存任何状态
+    private boolean simulate(long[] current, CharSequence input, int from) {
+        long[] set = current.clone();
+        long[] next = new long[words];
+        for (int i = from, n = input.length(); i < n; i++) {
+            char c = input.charAt(i);
+            int symbol = c < charSymbols.length ? charSymbols[c] : -1;
+            if (symbol < 0) {
+                return false;
+            }
+            Arrays.fill(next, 0);
+            nfa.moveClosure(set, symbol, next);
+            if (StateSet.isEmpty(next)) {
+                return false;
+            }
+            long[] temp = set;
+            set = next;
+            next = temp;
+        }
+        for (int w = 0; w < words; w++) {
+            if ((set[w] & endSet[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //缓存中的状态数
+    public int cachedStates() {
+        return cache.size();
+    }
+
+    public int flushCount() {
+        return flushCount;
+    }
+
+    public int fallbackCount() {
+        return fallbackCount;
+    }
+}
@@ -1,18 +1,95 @@
 //实现从NFA到DFA的转换
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 //DFA转移函数类
 class DFATransition {
     public ArrayList<Integer> from; //转移前状态
     public ArrayList<Integer> to; //转移后状态
     public String ch; //转移字符
+    public int fromIndex = -1; //转移前状态在DFA状态集合中的下标，未知时为-1
+    public int toIndex = -1; //转移后状态在DFA状态集合中的下标，未知时为-1
 
     public DFATransition(ArrayList<Integer> from, String ch, ArrayList<Integer> to) {
         this.from = from;
         this.to = to;
         this.ch = ch;
     }
+
+    public DFATransition(ArrayList<Integer> from, String ch, ArrayList<Integer> to, int fromIndex, int toIndex) {
+        this(from, ch, to);
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof DFATransition) {
+            DFATransition transition = (DFATransition) obj;
+            return from.equals(transition.from) && ch.equals(transition.ch) && to.equals(transition.to);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(from, ch, to);
+    }
+}
+
+//NFA状态子集，用状态编号的位集合表示，哈希值在构造时算好，作为DFA状态表的键
+class StateSet {
+    final long[] words; //位集合，构造后不应再修改
+    private final int hash;
+
+    StateSet(long[] words) {
+        this.words = words;
+        this.hash = Arrays.hashCode(words);
+    }
+
+    boolean contains(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    static boolean isEmpty(long[] set) {
+        for (long word : set) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //是否与另一个位集合有交集
+    boolean intersects(long[] other) {
+        for (int i = 0; i < words.length; i++) {
+            if ((words[i] & other[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof StateSet) {
+            StateSet set = (StateSet) obj;
+            return hash == set.hash && Arrays.equals(words, set.words);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
 }
 
 //DFA类
@@ -23,6 +100,10 @@ class DFA {
     public ArrayList<DFATransition> transitions; //转移函数
     public ArrayList<ArrayList<Integer>> states; //状态集合
     public ArrayList<String> alphabet; //字母表
+    public ArrayList<int[]> patterns; //与状态集合一一对应，每个状态匹配的模式编号（升序），NFA没有模式标记时为空列表
+
+    private HashMap<ArrayList<Integer>, Integer> stateIndex; //状态 -> 在状态集合中的下标，按需构建
+    private int indexedStates = -1; //构建stateIndex时的状态个数
 
     //构造函数
     public DFA() {
@@ -31,6 +112,100 @@ class DFA {
         this.transitions = new ArrayList<>();
         this.states = new ArrayList<>();
         this.alphabet = new ArrayList<>();
+        this.patterns = new ArrayList<>();
+    }
+
+    //下标为index的状态匹配的模式编号，没有时返回空数组
+    public int[] patternsOf(int index) {
+        if (index < 0 || index >= this.patterns.size() || this.patterns.get(index) == null) {
+            return new int[0];
+        }
+        return this.patterns.get(index);
+    }
+
+    //状态在状态集合中的下标，不存在时返回-1
+    public int indexOf(ArrayList<Integer> state) {
+        if (stateIndex == null || indexedStates != this.states.size()) {
+            stateIndex = new HashMap<>();
+            for (int i = 0; i < this.states.size(); i++) {
+                stateIndex.putIfAbsent(this.states.get(i), i);
+            }
+            indexedStates = this.states.size();
+        }
+        Integer index = stateIndex.get(state);
+        return index == null ? -1 : index;
+    }
+
+    //转移函数的起点下标，优先使用转移函数中记录的下标
+    int fromIndex(DFATransition transition) {
+        int index = transition.fromIndex;
+        if (index >= 0 && index < this.states.size() && this.states.get(index) == transition.from) {
+            return index;
+        }
+        return indexOf(transition.from);
+    }
+
+    //转移函数的终点下标，优先使用转移函数中记录的下标
+    int toIndex(DFATransition transition) {
+        int index = transition.toIndex;
+        if (index >= 0 && index < this.states.size() && this.states.get(index) == transition.to) {
+            return index;
+        }
+        return indexOf(transition.to);
+    }
+
+    //字母表中去掉ε和重复字符后的转移字符，顺序与字母表一致
+    public ArrayList<String> symbols() {
+        ArrayList<String> symbols = new ArrayList<>();
+        HashSet<String> seen = new HashSet<>();
+        for (String ch : this.alphabet) {
+            if (!ch.equals(NFA.EPSILON) && seen.add(ch)) {
+                symbols.add(ch);
+            }
+        }
+        return symbols;
+    }
+
+    //稠密转移表：table[i * k + c]为状态i经由symbols中第c个字符转移后的状态下标，没有转移时为-1，k为symbols的长度
+    public int[] transitionTable(ArrayList<String> symbols) {
+        HashMap<String, Integer> columns = new HashMap<>();
+        for (int c = 0; c < symbols.size(); c++) {
+            columns.put(symbols.get(c), c);
+        }
+        int k = symbols.size();
+        int[] table = new int[this.states.size() * k];
+        Arrays.fill(table, -1);
+        for (DFATransition transition : this.transitions) {
+            Integer column = columns.get(transition.ch);
+            int from = fromIndex(transition);
+            int to = toIndex(transition);
+            if (column != null && from >= 0 && to >= 0) {
+                table[from * k + column] = to;
+            }
+        }
+        return table;
+    }
+
+    //每个状态是否为终止状态
+    public boolean[] accepting() {
+        boolean[] accepting = new boolean[this.states.size()];
+        for (ArrayList<Integer> state : this.end) {
+            int index = indexOf(state);
+            if (index >= 0) {
+                accepting[index] = true;
+            }
+        }
+        return accepting;
+    }
+
+    //编译为稠密转移表形式，用于在字符串上匹配
+    public CompiledDFA compile() {
+        return new CompiledDFA(this);
+    }
+
+    //用Hopcroft算法最小化DFA，返回新的DFA以及最小化前后的状态数
+    public DFAMinimizer.Result minimize() {
+        return new DFAMinimizer(this).minimize();
     }
 
     //打印DFA,包括状态集合、字母表、起始状态、终止状态、转移函数
@@ -70,41 +245,19 @@ class DFA {
         }
     }
 
-    //打印DFA，要求将状态集合中的状态用大写字母A-Z表示
+    //打印DFA，将状态集合中的状态用大写字母A、B、...、Z、AA、AB、...表示
     //打印状态集合、字母表、起始状态、终止状态、转移函数
-    //打印时将状态集合、起始状态、终止状态和转移函数中的状态用大写字母A-Z表示
+    //打印时将状态集合、起始状态、终止状态和转移函数中的状态用大写字母表示
     public void printDFA2() {
-        //输出DFA的各个部分
-        System.out.println("状态集合：");
-        for (int i = 0; i < this.states.size(); i++) {
-            System.out.print((char)('A' + i) + " = ");
-            for (Integer integer : this.states.get(i)) {
-                System.out.print(integer + " ");
-            }
-            System.out.println();
-        }
-        System.out.println();
-        System.out.println("字母表：");
-        for (String string : this.alphabet) {
-            System.out.print(string + " ");
-        }
-        System.out.println();
-        System.out.println();
-        System.out.println("起始状态：");
-        ArrayList<Integer> startArrayList = new ArrayList<>(this.start);
-        System.out.print((char)('A' + this.states.indexOf(startArrayList)) + " ");
-        System.out.println();
-        System.out.println();
-        System.out.println("终止状态：");
-        for (ArrayList<Integer> arrayList : this.end) {
-            ArrayList<Integer> endArrayList = new ArrayList<>(arrayList);
-            System.out.print((char)('A' + this.states.indexOf(endArrayList)) + " ");
-            System.out.println();
-        }
-        System.out.println();
-        System.out.println("转移函数：");
-        for (DFATransition transition : this.transitions) {
-            System.out.println((char)('A' + this.states.indexOf(transition.from)) + " " + transition.ch + " " + (char)('A' + this.states.indexOf(transition.to)));
+        export(DFAExporter.Format.TEXT, DFAExporter.console());
+    }
+
+    //以文本、DOT或JSON格式输出DFA
+    public void export(DFAExporter.Format format, Writer out) {
+        try {
+            DFAExporter.export(this, format, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -130,6 +283,29 @@ class NFA{
     public ArrayList<NFATransition> transitions; //转移函数
     public ArrayList<Integer> states; //状态集合
     public ArrayList<String> alphabet; //字母表
+    public HashMap<Integer, Integer> endPatterns; //终止状态 -> 模式编号，由多个模式合并成的NFA用它区分匹配的是哪个模式
+
+    public static final String EPSILON = "&"; //ε转移字符
+
+    //转移函数的邻接索引，由buildIndex()一次性构建，addEdge和removeEdge原地增删单条非ε出边，move和ε闭包只访问给定状态的出边
+    //状态号和转移字符都被映射为稠密的整数编号，编号只增不减，重建索引时已有编号保持不变
+    private HashMap<Integer, Integer> stateIndex; //状态号 -> 稠密编号
+    private ArrayList<Integer> stateNames; //稠密编号 -> 状态号
+    private HashMap<String, Integer> symbolIds; //转移字符 -> 字符编号（不含ε）
+    private ArrayList<String> symbolNames; //字符编号 -> 转移字符
+    private int[] edgeStart; //状态i的非ε出边位于[edgeStart[i], edgeStart[i + 1])，同一状态的出边按字符编号排序
+    private int[] edgeSymbol; //出边的字符编号
+    private int[] edgeTarget; //出边的目标状态编号
+    private int[] epsilonStart; //状态i的ε出边位于[epsilonStart[i], epsilonStart[i + 1])
+    private int[] epsilonTarget; //ε出边的目标状态编号
+    private ArrayList<NFATransition> indexedTransitions; //建索引时的转移函数集合
+    private int[] sccOf; //状态编号 -> 所在ε强连通分量编号，为null表示ε闭包尚未计算
+    private int[][] sccClosure; //每个ε强连通分量的ε闭包，为升序排列的状态编号
+    private int indexedSize = -1; //建索引时的转移函数个数
+    private ArrayList<Integer> indexedEnd; //已分配编号的终止状态列表
+    private int indexedEndSize; //其中已分配编号的前缀长度
+    private ArrayList<Integer> indexedStates; //已分配编号的状态集合列表
+    private int indexedStatesSize; //其中已分配编号的前缀长度
 
     //构造函数
     public NFA() {
@@ -138,6 +314,7 @@ class NFA{
         this.transitions = new ArrayList<>();
         this.states = new ArrayList<>();
         this.alphabet = new ArrayList<>();
+        this.endPatterns = new HashMap<>();
     }
 
     //根据输入构建NFA
@@ -153,6 +330,9 @@ class NFA{
             nfa.end.add(sc.nextInt());
         }
         //输入转移函数，具有用户交互性，并在添加转移函数的同时添加状态和字母表
+        //用哈希集合判断状态和字符是否已经出现过，避免在列表上线性查找
+        HashSet<Integer> stateSet = new HashSet<>();
+        HashSet<String> alphabetSet = new HashSet<>();
         System.out.println("请输入转移函数个数：");
         int transitionNum = sc.nextInt();
         for (int i = 0; i < transitionNum; i++) {
@@ -161,41 +341,536 @@ class NFA{
             String ch = sc.next();
             int to = sc.nextInt();
             nfa.transitions.add(new NFATransition(from, ch, to));
-            if (!nfa.states.contains(from)) {
+            if (stateSet.add(from)) {
                 nfa.states.add(from);
             }
-            if (!nfa.states.contains(to)) {
+            if (stateSet.add(to)) {
                 nfa.states.add(to);
             }
-            if (!nfa.alphabet.contains(ch)) {
+            if (alphabetSet.add(ch)) {
                 nfa.alphabet.add(ch);
             }
         }
         return nfa;
     }
 
-    //求出某个状态的ε闭包
-    public ArrayList<Integer> epsilonClosure(int state) {
-        ArrayList<Integer> closure = new ArrayList<>();
-        closure.add(state);
-        for (NFATransition transition : this.transitions) {
-            if (transition.from == state && transition.ch.equals("&")) {
-                if (transition.from == transition.to) {
+    //构建转移函数的邻接索引
+    //转移函数被修改后（而不是只在末尾追加）需要手动调用本方法重建索引
+    public void buildIndex() {
+        if (stateIndex == null) {
+            stateIndex = new HashMap<>();
+            stateNames = new ArrayList<>();
+            symbolIds = new HashMap<>();
+            symbolNames = new ArrayList<>();
+        }
+        //为状态和转移字符分配编号
+        indexedEnd = null;
+        indexedStates = null;
+        indexStates();
+        int n = this.transitions.size();
+        int[] from = new int[n];
+        int[] symbol = new int[n];
+        int[] to = new int[n];
+        for (int i = 0; i < n; i++) {
+            NFATransition transition = this.transitions.get(i);
+            from[i] = internState(transition.from);
+            to[i] = internState(transition.to);
+            symbol[i] = transition.ch.equals(EPSILON) ? -1 : internSymbol(transition.ch);
+        }
+        int stateCount = stateNames.size();
+        int[] oldEpsilonStart = epsilonStart;
+        int[] oldEpsilonTarget = epsilonTarget;
+        //按起点计数排序，非ε出边和ε出边分开存放
+        edgeStart = new int[stateCount + 1];
+        epsilonStart = new int[stateCount + 1];
+        for (int i = 0; i < n; i++) {
+            if (symbol[i] < 0) {
+                epsilonStart[from[i] + 1]++;
+            } else {
+                edgeStart[from[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < stateCount; i++) {
+            edgeStart[i + 1] += edgeStart[i];
+            epsilonStart[i + 1] += epsilonStart[i];
+        }
+        edgeSymbol = new int[edgeStart[stateCount]];
+        edgeTarget = new int[edgeStart[stateCount]];
+        epsilonTarget = new int[epsilonStart[stateCount]];
+        int[] edgeFill = Arrays.copyOf(edgeStart, stateCount);
+        int[] epsilonFill = Arrays.copyOf(epsilonStart, stateCount);
+        for (int i = 0; i < n; i++) {
+            if (symbol[i] < 0) {
+                epsilonTarget[epsilonFill[from[i]]++] = to[i];
+            } else {
+                int k = edgeFill[from[i]]++;
+                edgeSymbol[k] = symbol[i];
+                edgeTarget[k] = to[i];
+            }
+        }
+        //同一状态的出边按字符编号排序，便于按字符二分查找（出边通常很少，用插入排序）
+        for (int i = 0; i < stateCount; i++) {
+            for (int j = edgeStart[i] + 1; j < edgeStart[i + 1]; j++) {
+                int s = edgeSymbol[j];
+                int t = edgeTarget[j];
+                int k = j - 1;
+                while (k >= edgeStart[i] && edgeSymbol[k] > s) {
+                    edgeSymbol[k + 1] = edgeSymbol[k];
+                    edgeTarget[k + 1] = edgeTarget[k];
+                    k--;
+                }
+                edgeSymbol[k + 1] = s;
+                edgeTarget[k + 1] = t;
+            }
+        }
+        indexedTransitions = this.transitions;
+        indexedSize = n;
+        //只修改了非ε转移时，已求出的ε闭包仍然有效
+        if (!Arrays.equals(epsilonStart, oldEpsilonStart) || !Arrays.equals(epsilonTarget, oldEpsilonTarget)) {
+            sccOf = null;
+            sccClosure = null;
+        }
+    }
+
+    //一次性求出所有状态的ε闭包
+    //先用Tarjan算法（非递归，避免ε环和长ε链导致栈溢出）求出ε转移图的强连通分量，
+    //同一分量内的状态ε闭包相同；Tarjan按逆拓扑序输出分量，所以处理某个分量时其后继分量的闭包都已求出
+    private void computeClosures() {
+        int n = stateNames.size();
+        int[] order = new int[n]; //访问次序
+        int[] low = new int[n];
+        int[] stack = new int[n]; //Tarjan栈
+        boolean[] onStack = new boolean[n];
+        int[] callStack = new int[n]; //模拟递归的调用栈
+        int[] edgePos = new int[n]; //每个状态下一条待访问的ε出边
+        int[] mark = new int[n]; //合并闭包时去重，mark[x] == 当前分量编号表示x已加入
+        int[] buffer = new int[n];
+        Arrays.fill(order, -1);
+        Arrays.fill(mark, -1);
+        sccOf = new int[n];
+        Arrays.fill(sccOf, -1);
+        ArrayList<int[]> closures = new ArrayList<>();
+        int counter = 0;
+        int sp = 0;
+        for (int root = 0; root < n; root++) {
+            if (order[root] != -1) {
+                continue;
+            }
+            int csp = 0;
+            order[root] = low[root] = counter++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            edgePos[root] = epsilonStart[root];
+            callStack[csp++] = root;
+            while (csp > 0) {
+                int v = callStack[csp - 1];
+                if (edgePos[v] < epsilonStart[v + 1]) {
+                    int w = epsilonTarget[edgePos[v]++];
+                    if (order[w] == -1) {
+                        order[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        edgePos[w] = epsilonStart[w];
+                        callStack[csp++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], order[w]);
+                    }
+                    continue;
+                }
+                csp--;
+                if (csp > 0) {
+                    int u = callStack[csp - 1];
+                    low[u] = Math.min(low[u], low[v]);
+                }
+                if (low[v] != order[v]) {
                     continue;
                 }
-                closure.addAll(epsilonClosure(transition.to));
+                //v是分量的根，弹出整个分量
+                int scc = closures.size();
+                int first = sp;
+                do {
+                    int x = stack[--first];
+                    onStack[x] = false;
+                    sccOf[x] = scc;
+                } while (stack[first] != v);
+                //分量的闭包 = 分量内的状态 ∪ 所有后继分量的闭包
+                int size = 0;
+                for (int i = first; i < sp; i++) {
+                    int x = stack[i];
+                    if (mark[x] != scc) {
+                        mark[x] = scc;
+                        buffer[size++] = x;
+                    }
+                }
+                for (int i = first; i < sp; i++) {
+                    int x = stack[i];
+                    for (int k = epsilonStart[x]; k < epsilonStart[x + 1]; k++) {
+                        int c = sccOf[epsilonTarget[k]];
+                        if (c == scc) {
+                            continue;
+                        }
+                        for (int y : closures.get(c)) {
+                            if (mark[y] != scc) {
+                                mark[y] = scc;
+                                buffer[size++] = y;
+                            }
+                        }
+                    }
+                }
+                sp = first;
+                int[] closure = Arrays.copyOf(buffer, size);
+                Arrays.sort(closure);
+                closures.add(closure);
+            }
+        }
+        sccClosure = closures.toArray(new int[0][]);
+    }
+
+    //丢弃已求出的ε闭包，下次使用时重新计算
+    //buildIndex在ε转移没有变化时保留闭包，需要重新计算闭包（例如测量闭包计算本身）时调用
+    public void invalidateClosures() {
+        sccOf = null;
+        sccClosure = null;
+    }
+
+    //状态编号index的ε闭包，为升序排列的状态编号，调用方不应修改返回的数组
+    int[] closure(int index) {
+        ensureIndex();
+        if (sccOf == null) {
+            computeClosures();
+        }
+        return sccClosure[sccOf[index]];
+    }
+
+    //位集合需要的long个数
+    int wordCount() {
+        return (stateCount() + 63) >>> 6;
+    }
+
+    //把状态编号index的ε闭包并入位集合set
+    void addClosure(int index, long[] set) {
+        for (int x : closure(index)) {
+            set[x >>> 6] |= 1L << x;
+        }
+    }
+
+    //把位集合from中的状态经由字符symbol转移后的ε闭包并入位集合to
+    //to中的每个状态的闭包都已在to中，所以目标状态已在to中时可以跳过
+    void moveClosure(long[] from, int symbol, long[] to) {
+        for (int w = 0; w < from.length; w++) {
+            long word = from[w];
+            while (word != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                int end = edgeStart[index + 1];
+                for (int k = firstEdge(index, symbol); k < end && edgeSymbol[k] == symbol; k++) {
+                    int target = edgeTarget[k];
+                    if ((to[target >>> 6] & (1L << target)) == 0) {
+                        addClosure(target, to);
+                    }
+                }
             }
         }
-        return closure;
+    }
+
+    //把位集合from中的状态经由字符symbol的直接后继并入位集合to，不求ε闭包
+    void move(long[] from, int symbol, long[] to) {
+        for (int w = 0; w < from.length; w++) {
+            long word = from[w];
+            while (word != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                int end = edgeStart[index + 1];
+                for (int k = firstEdge(index, symbol); k < end && edgeSymbol[k] == symbol; k++) {
+                    to[edgeTarget[k] >>> 6] |= 1L << edgeTarget[k];
+                }
+            }
+        }
+    }
+
+    //把位集合set中每个状态的ε闭包并入位集合to
+    void addClosures(long[] set, long[] to) {
+        for (int w = 0; w < set.length; w++) {
+            long word = set[w];
+            while (word != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if ((to[index >>> 6] & (1L << index)) == 0) {
+                    addClosure(index, to);
+                }
+            }
+        }
+    }
+
+    //起始状态的ε闭包对应的位集合
+    long[] startSet() {
+        long[] set = new long[wordCount()];
+        addClosure(indexOf(this.start), set);
+        return set;
+    }
+
+    //终止状态的位集合
+    long[] endSet() {
+        long[] set = new long[wordCount()];
+        for (Integer end : this.end) {
+            int index = indexOf(end);
+            //终止状态在列表中被原地替换时可能还没有编号，这样的状态不在任何子集中，可以跳过
+            if (index >= 0) {
+                set[index >>> 6] |= 1L << index;
+            }
+        }
+        return set;
+    }
+
+    //字符 -> 字符编号，只包含单个字符的转移字符，其他字符不在数组范围内或为-1
+    int[] charSymbols() {
+        int max = -1;
+        for (int id = 0; id < symbolCount(); id++) {
+            String ch = symbolNames.get(id);
+            if (ch.length() == 1) {
+                max = Math.max(max, ch.charAt(0));
+            }
+        }
+        int[] charSymbols = new int[max + 1];
+        Arrays.fill(charSymbols, -1);
+        for (int id = 0; id < symbolNames.size(); id++) {
+            String ch = symbolNames.get(id);
+            if (ch.length() == 1) {
+                charSymbols[ch.charAt(0)] = id;
+            }
+        }
+        return charSymbols;
+    }
+
+    //位集合转换为按状态号升序排列的状态集合
+    ArrayList<Integer> toStateList(long[] set) {
+        ArrayList<Integer> list = new ArrayList<>();
+        for (int w = 0; w < set.length; w++) {
+            long word = set[w];
+            while (word != 0) {
+                list.add(stateNames.get((w << 6) + Long.numberOfTrailingZeros(word)));
+                word &= word - 1;
+            }
+        }
+        Collections.sort(list);
+        return list;
+    }
+
+    //索引不存在或转移函数集合发生变化时重建索引
+    //只有起始状态、终止状态或状态集合变化时不必重建，新状态没有出边，分配编号后补齐索引即可
+    void ensureIndex() {
+        if (indexedTransitions != this.transitions || indexedSize != this.transitions.size()) {
+            buildIndex();
+        } else if (indexedEnd != this.end || indexedEndSize != this.end.size()
+                || indexedStates != this.states || indexedStatesSize != this.states.size()
+                || !stateIndex.containsKey(this.start)) {
+            indexStates();
+            growStates();
+        }
+    }
+
+    //为起始状态、终止状态和状态集合中的状态分配编号，列表只在末尾追加时只看新追加的部分
+    private void indexStates() {
+        internState(this.start);
+        int from = indexedEnd == this.end && indexedEndSize <= this.end.size() ? indexedEndSize : 0;
+        for (int i = from; i < this.end.size(); i++) {
+            internState(this.end.get(i));
+        }
+        from = indexedStates == this.states && indexedStatesSize <= this.states.size() ? indexedStatesSize : 0;
+        for (int i = from; i < this.states.size(); i++) {
+            internState(this.states.get(i));
+        }
+        indexedEnd = this.end;
+        indexedEndSize = this.end.size();
+        indexedStates = this.states;
+        indexedStatesSize = this.states.size();
+    }
+
+    //增量添加一个转移函数：非ε转移直接插入邻接索引，不重建索引，已求出的ε闭包仍然有效
+    //ε转移会改变ε闭包，只追加到转移函数集合，下次使用索引时整体重建
+    void addEdge(NFATransition transition) {
+        ensureIndex();
+        this.transitions.add(transition);
+        if (transition.ch.equals(EPSILON)) {
+            return;
+        }
+        int from = internState(transition.from);
+        int to = internState(transition.to);
+        int symbol = internSymbol(transition.ch);
+        growStates();
+        int total = edgeStart[stateNames.size()];
+        if (total == edgeTarget.length) {
+            edgeSymbol = Arrays.copyOf(edgeSymbol, Math.max(16, 2 * total));
+            edgeTarget = Arrays.copyOf(edgeTarget, edgeSymbol.length);
+        }
+        //插入到同一状态、同一字符的出边之前，出边仍按字符编号有序
+        int k = firstEdge(from, symbol);
+        System.arraycopy(edgeSymbol, k, edgeSymbol, k + 1, total - k);
+        System.arraycopy(edgeTarget, k, edgeTarget, k + 1, total - k);
+        edgeSymbol[k] = symbol;
+        edgeTarget[k] = to;
+        for (int i = from + 1; i < edgeStart.length; i++) {
+            edgeStart[i]++;
+        }
+        indexedSize = this.transitions.size();
+    }
+
+    //增量删除转移函数集合中位置position的转移函数，用最后一个转移函数填补空位，集合中的顺序会改变
+    //非ε转移直接从邻接索引中删除，ε转移在下次使用索引时整体重建
+    void removeEdge(int position) {
+        ensureIndex();
+        NFATransition transition = this.transitions.get(position);
+        NFATransition last = this.transitions.remove(this.transitions.size() - 1);
+        if (position < this.transitions.size()) {
+            this.transitions.set(position, last);
+        }
+        if (transition.ch.equals(EPSILON)) {
+            return;
+        }
+        int from = stateIndex.get(transition.from);
+        int to = stateIndex.get(transition.to);
+        int symbol = symbolIds.get(transition.ch);
+        int total = edgeStart[stateNames.size()];
+        int k = firstEdge(from, symbol);
+        while (edgeTarget[k] != to) {
+            k++;
+        }
+        System.arraycopy(edgeSymbol, k + 1, edgeSymbol, k, total - k - 1);
+        System.arraycopy(edgeTarget, k + 1, edgeTarget, k, total - k - 1);
+        for (int i = from + 1; i < edgeStart.length; i++) {
+            edgeStart[i]--;
+        }
+        indexedSize = this.transitions.size();
+    }
+
+    //增量添加转移函数时出现了新状态，补齐邻接索引，新状态没有出边，ε闭包只含自身
+    private void growStates() {
+        int n = stateNames.size();
+        int old = edgeStart.length - 1;
+        if (old == n) {
+            return;
+        }
+        edgeStart = Arrays.copyOf(edgeStart, n + 1);
+        Arrays.fill(edgeStart, old + 1, n + 1, edgeStart[old]);
+        epsilonStart = Arrays.copyOf(epsilonStart, n + 1);
+        Arrays.fill(epsilonStart, old + 1, n + 1, epsilonStart[old]);
+        if (sccOf != null) {
+            int scc = sccClosure.length;
+            sccOf = Arrays.copyOf(sccOf, n);
+            sccClosure = Arrays.copyOf(sccClosure, scc + n - old);
+            for (int i = old; i < n; i++) {
+                sccOf[i] = scc;
+                sccClosure[scc++] = new int[]{i};
+            }
+        }
+    }
+
+    private int internState(int state) {
+        Integer index = stateIndex.get(state);
+        if (index == null) {
+            index = stateNames.size();
+            stateIndex.put(state, index);
+            stateNames.add(state);
+        }
+        return index;
+    }
+
+    private int internSymbol(String ch) {
+        Integer id = symbolIds.get(ch);
+        if (id == null) {
+            id = symbolNames.size();
+            symbolIds.put(ch, id);
+            symbolNames.add(ch);
+        }
+        return id;
+    }
+
+    //状态数
+    int stateCount() {
+        ensureIndex();
+        return stateNames.size();
+    }
+
+    //状态号对应的稠密编号，不存在时返回-1
+    int indexOf(int state) {
+        ensureIndex();
+        Integer index = stateIndex.get(state);
+        return index == null ? -1 : index;
+    }
+
+    //稠密编号对应的状态号
+    int stateName(int index) {
+        return stateNames.get(index);
+    }
+
+    //字符数（不含ε）
+    int symbolCount() {
+        ensureIndex();
+        return symbolNames.size();
+    }
+
+    //转移字符对应的字符编号，ε或不存在时返回-1
+    int symbolId(String ch) {
+        ensureIndex();
+        Integer id = symbolIds.get(ch);
+        return id == null ? -1 : id;
+    }
+
+    //字符编号对应的转移字符
+    String symbolName(int id) {
+        return symbolNames.get(id);
+    }
+
+    //状态index经由字符symbol的出边在edgeTarget中的起始位置，出边位于[firstEdge, edgeEnd)且字符编号相同
+    int firstEdge(int index, int symbol) {
+        int low = edgeStart[index];
+        int high = edgeStart[index + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (edgeSymbol[mid] < symbol) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    //求出某个状态的ε闭包，结果按状态号升序排列且不含重复元素
+    public ArrayList<Integer> epsilonClosure(int state) {
+        int index = indexOf(state);
+        if (index < 0) {
+            ArrayList<Integer> closure = new ArrayList<>();
+            closure.add(state);
+            return closure;
+        }
+        long[] set = new long[wordCount()];
+        addClosure(index, set);
+        return toStateList(set);
     }
 
     //求出某个状态集合中所有状态经由某个字符转移后的状态集合
     public ArrayList<Integer> move(ArrayList<Integer> states, String ch) {
+        ensureIndex();
         ArrayList<Integer> move = new ArrayList<>();
+        boolean epsilon = ch.equals(EPSILON);
+        int symbol = epsilon ? -1 : symbolId(ch);
+        if (!epsilon && symbol < 0) {
+            return move;
+        }
         for (Integer state : states) {
-            for (NFATransition transition : this.transitions) {
-                if (transition.from == state && transition.ch.equals(ch)) {
-                    move.add(transition.to);
+            Integer index = stateIndex.get(state);
+            if (index == null) {
+                continue;
+            }
+            if (epsilon) {
+                for (int k = epsilonStart[index]; k < epsilonStart[index + 1]; k++) {
+                    move.add(stateNames.get(epsilonTarget[k]));
+                }
+            } else {
+                int end = edgeStart[index + 1];
+                for (int k = firstEdge(index, symbol); k < end && edgeSymbol[k] == symbol; k++) {
+                    move.add(stateNames.get(edgeTarget[k]));
                 }
             }
         }
@@ -203,80 +878,293 @@ class NFA{
     }
 
     //求出某个状态集合经由某个字符转移后的ε闭包
+    //结果按状态号升序排列且不含重复元素
     public ArrayList<Integer> moveEpsilonClosure(ArrayList<Integer> states, String ch) {
-        ArrayList<Integer> move = move(states, ch);
-        ArrayList<Integer> moveEpsilonClosure = new ArrayList<>();
-        for (Integer state : move) {
-            moveEpsilonClosure.addAll(epsilonClosure(state));
+        long[] set = new long[wordCount()];
+        if (ch.equals(EPSILON)) {
+            for (Integer state : move(states, ch)) {
+                addClosure(stateIndex.get(state), set);
+            }
+            return toStateList(set);
+        }
+        int symbol = symbolId(ch);
+        if (symbol < 0) {
+            return new ArrayList<>();
+        }
+        long[] from = new long[set.length];
+        for (Integer state : states) {
+            Integer index = stateIndex.get(state);
+            if (index != null) {
+                from[index >>> 6] |= 1L << index;
+            }
         }
-        //删除重复元素并排序
-        HashSet<Integer> set = new HashSet<>(moveEpsilonClosure);
-        moveEpsilonClosure.clear();
-        moveEpsilonClosure.addAll(set);
-        Collections.sort(moveEpsilonClosure);
-        return moveEpsilonClosure;
+        moveClosure(from, symbol, set);
+        return toStateList(set);
     }
 
     //由NFA构造DFA
+    //NFA状态子集用位集合表示，通过哈希表映射为稠密的DFA状态编号；新发现的子集进入工作队列，每个子集只展开一次
     public DFA buildDFA() {
+        return buildDFA(ConversionMetrics.eventsEnabled() ? new ConversionMetrics() : null);
+    }
+
+    //由NFA构造DFA，metrics不为null时收集各阶段的度量，构造结束后同时提交JFR事件
+    //收集度量时move和ε闭包分两步计算以便分别计时
+    public DFA buildDFA(ConversionMetrics metrics) {
+        long begin = metrics == null ? 0 : System.nanoTime();
         DFA dfa = new DFA();
+        int words = wordCount();
         //首先求出NFA的起始状态的ε闭包，作为DFA的起始状态
-        ArrayList<Integer> startClosure = epsilonClosure(this.start);
-        dfa.start = startClosure;
-        //将DFA的起始状态加入到DFA的状态集合中
-        dfa.states.add(startClosure);
+        long[] startSet = startSet();
+        if (metrics != null) {
+            metrics.closureNanos += System.nanoTime() - begin;
+            metrics.nfaStates = stateCount();
+            metrics.peakSubsetSize = bitCount(startSet);
+        }
+        HashMap<StateSet, Integer> ids = new HashMap<>();
+        ArrayList<StateSet> sets = new ArrayList<>();
+        StateSet startKey = new StateSet(startSet);
+        ids.put(startKey, 0);
+        sets.add(startKey);
+        dfa.start = toStateList(startSet);
+        dfa.states.add(dfa.start);
         //将NFA的字母表作为DFA的字母表
         dfa.alphabet = this.alphabet;
-        //对于每个状态集合，求出经由每个字符转移后的ε闭包，作为DFA的转移函数,并将转移函数添加到DFA的转移函数集合中,并将转移函数的终点加入到DFA的状态集合
-        int dfaStateFinish = 0;
-        while (true){
-            //假如存在未遍历的状态集合，则继续遍历
-            //假如不存在未遍历的状态集合，则跳出循环
-            int dfaStateNumBefore = dfa.states.size();
-            for (int i = dfaStateFinish; i < dfaStateNumBefore; i++) {
-                for (String ch : dfa.alphabet) {
-                    if (Objects.equals(ch, "&")) {
+        int[] symbols = alphabetSymbols(dfa.alphabet);
+        //工作队列即sets中下标i之后的子集，对于每个子集，求出经由每个字符转移后的ε闭包，作为DFA的转移函数
+        long[] next = new long[words];
+        long[] moved = metrics == null ? null : new long[words];
+        int levelEnd = 1; //当前层次的子集为sets[i, levelEnd)，用于统计每层的结果
+        int levelTransitions = 0;
+        for (int i = 0; i < sets.size(); i++) {
+            if (metrics != null && i == levelEnd) {
+                metrics.addLevel(sets.size() - levelEnd, levelTransitions);
+                levelEnd = sets.size();
+                levelTransitions = 0;
+            }
+            long[] current = sets.get(i).words;
+            for (int k = 0; k < symbols.length; k++) {
+                if (symbols[k] < 0) {
+                    continue;
+                }
+                long time = 0;
+                if (metrics == null) {
+                    moveClosure(current, symbols[k], next);
+                } else {
+                    time = System.nanoTime();
+                    Arrays.fill(moved, 0);
+                    move(current, symbols[k], moved);
+                    long moveEnd = System.nanoTime();
+                    addClosures(moved, next);
+                    metrics.moveNanos += moveEnd - time;
+                    time = System.nanoTime();
+                    metrics.closureNanos += time - moveEnd;
+                }
+                if (StateSet.isEmpty(next)) {
+                    continue;
+                }
+                StateSet key = new StateSet(next);
+                Integer id = ids.get(key);
+                if (id == null) {
+                    id = sets.size();
+                    ids.put(key, id);
+                    sets.add(key);
+                    dfa.states.add(toStateList(next));
+                    if (metrics != null) {
+                        metrics.peakSubsetSize = Math.max(metrics.peakSubsetSize, bitCount(next));
+                    }
+                    next = new long[words];
+                } else {
+                    Arrays.fill(next, 0);
+                }
+                dfa.transitions.add(new DFATransition(dfa.states.get(i), dfa.alphabet.get(k), dfa.states.get(id), i, id));
+                if (metrics != null) {
+                    levelTransitions++;
+                    metrics.dedupNanos += System.nanoTime() - time;
+                }
+            }
+        }
+        addEndStates(dfa, sets);
+        if (metrics != null) {
+            metrics.addLevel(sets.size() - levelEnd, levelTransitions);
+            metrics.dfaStates = sets.size();
+            metrics.dfaTransitions = dfa.transitions.size();
+            metrics.totalNanos = System.nanoTime() - begin;
+            metrics.commitEvents();
+        }
+        return dfa;
+    }
+
+    private static int bitCount(long[] set) {
+        int count = 0;
+        for (long word : set) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    //不构造DFA，直接在NFA上以位集合模拟
+    public NFASimulator simulator() {
+        return new NFASimulator(this);
+    }
+
+    //并行地由NFA构造DFA，使用公共ForkJoin线程池
+    public DFA buildDFAParallel() {
+        return buildDFAParallel(ForkJoinPool.commonPool());
+    }
+
+    //并行地由NFA构造DFA，按广度优先的层次展开：同一层的每个子集经由每个字符的后继互不依赖，在线程池中并行计算，
+    //新子集通过并发哈希表去重；之后按(子集, 字符)的顺序串行分配编号，所以结果与buildDFA完全相同
+    public DFA buildDFAParallel(ForkJoinPool pool) {
+        DFA dfa = new DFA();
+        int words = wordCount();
+        long[] startSet = startSet(); //同时建好索引和ε闭包，并行阶段只读
+        ConcurrentHashMap<StateSet, Integer> ids = new ConcurrentHashMap<>();
+        ArrayList<StateSet> sets = new ArrayList<>();
+        StateSet startKey = new StateSet(startSet);
+        ids.put(startKey, 0);
+        sets.add(startKey);
+        dfa.start = toStateList(startSet);
+        dfa.states.add(dfa.start);
+        dfa.alphabet = this.alphabet;
+        int[] symbols = alphabetSymbols(dfa.alphabet);
+        int m = symbols.length;
+        int levelStart = 0;
+        while (levelStart < sets.size()) {
+            int first = levelStart;
+            int levelEnd = sets.size();
+            //known为已有编号的后继，-1表示后继为空或是本层新发现的子集；新子集在fresh中去重并求出其状态列表
+            int[] known = new int[(levelEnd - first) * m];
+            StateSet[] successors = new StateSet[known.length];
+            ConcurrentHashMap<StateSet, ArrayList<Integer>> fresh = new ConcurrentHashMap<>();
+            pool.submit(() -> IntStream.range(first, levelEnd).parallel().forEach(i -> {
+                long[] current = sets.get(i).words;
+                long[] next = new long[words];
+                for (int k = 0; k < m; k++) {
+                    int slot = (i - first) * m + k;
+                    known[slot] = -1;
+                    if (symbols[k] < 0) {
                         continue;
                     }
-                    ArrayList<Integer> moveEpsilonClosure = moveEpsilonClosure(dfa.states.get(i), ch);
-                    if(!moveEpsilonClosure.isEmpty()){
-                        if (!dfa.transitions.contains(new DFATransition(dfa.states.get(i), ch, moveEpsilonClosure))) {
-                            dfa.transitions.add(new DFATransition(dfa.states.get(i), ch, moveEpsilonClosure));
-                            if (!dfa.states.contains(moveEpsilonClosure)) {
-                                dfa.states.add(moveEpsilonClosure);
-                            }
+                    moveClosure(current, symbols[k], next);
+                    if (StateSet.isEmpty(next)) {
+                        continue;
+                    }
+                    StateSet key = new StateSet(next);
+                    Integer id = ids.get(key);
+                    if (id != null) {
+                        known[slot] = id;
+                        Arrays.fill(next, 0);
+                        continue;
+                    }
+                    successors[slot] = key;
+                    fresh.computeIfAbsent(key, set -> toStateList(set.words));
+                    next = new long[words];
+                }
+            })).join();
+            //串行分配编号并添加转移函数
+            for (int i = first; i < levelEnd; i++) {
+                for (int k = 0; k < m; k++) {
+                    int slot = (i - first) * m + k;
+                    int id = known[slot];
+                    if (id < 0) {
+                        StateSet key = successors[slot];
+                        if (key == null) {
+                            continue;
                         }
+                        Integer assigned = ids.get(key);
+                        if (assigned == null) {
+                            assigned = sets.size();
+                            ids.put(key, assigned);
+                            sets.add(key);
+                            dfa.states.add(fresh.get(key));
+                        }
+                        id = assigned;
                     }
-
+                    dfa.transitions.add(new DFATransition(dfa.states.get(i), dfa.alphabet.get(k), dfa.states.get(id), i, id));
                 }
             }
-            dfaStateFinish = dfaStateNumBefore;
-            int dfaStateNumAfter = dfa.states.size();
-            if (dfaStateNumBefore == dfaStateNumAfter) {
-                break;
+            levelStart = levelEnd;
+        }
+        addEndStates(dfa, sets);
+        return dfa;
+    }
+
+    //字母表中每个字符对应的字符编号，ε为-1
+    private int[] alphabetSymbols(ArrayList<String> alphabet) {
+        int[] symbols = new int[alphabet.size()];
+        for (int k = 0; k < symbols.length; k++) {
+            symbols[k] = symbolId(alphabet.get(k));
+        }
+        return symbols;
+    }
+
+    //求出DFA的终止状态集合
+    //对于每个状态集合，如果该状态集合中包含NFA的终止状态，则将该状态集合作为DFA的终止状态集合
+    //NFA的终止状态带有模式编号时，DFA的每个状态记录其子集中终止状态的模式编号
+    void addEndStates(DFA dfa, ArrayList<StateSet> sets) {
+        long[] endSet = endSet();
+        int[] patternOf = null;
+        if (!this.endPatterns.isEmpty()) {
+            patternOf = new int[stateCount()];
+            Arrays.fill(patternOf, -1);
+            for (Map.Entry<Integer, Integer> entry : this.endPatterns.entrySet()) {
+                int index = indexOf(entry.getKey());
+                if (index >= 0) {
+                    patternOf[index] = entry.getValue();
+                }
             }
         }
-        //求出DFA的终止状态集合
-        //对于每个状态集合，如果该状态集合中包含NFA的终止状态，则将该状态集合作为DFA的终止状态集合
-        for (ArrayList<Integer> state : dfa.states) {
-            for (Integer end : this.end) {
-                if (state.contains(end)) {
-                    dfa.end.add(state);
-                    break;
+        for (int i = 0; i < sets.size(); i++) {
+            StateSet set = sets.get(i);
+            if (!set.intersects(endSet)) {
+                if (patternOf != null) {
+                    dfa.patterns.add(null);
                 }
+                continue;
             }
+            dfa.end.add(dfa.states.get(i));
+            if (patternOf == null) {
+                continue;
+            }
+            int[] ids = new int[8];
+            int count = 0;
+            //子集可能在新的终止状态分配编号之前求出，位集合比endSet短，多出的部分不在子集中
+            for (int w = 0, n = Math.min(endSet.length, set.words.length); w < n; w++) {
+                long word = set.words[w] & endSet[w];
+                while (word != 0) {
+                    int pattern = patternOf[(w << 6) + Long.numberOfTrailingZeros(word)];
+                    word &= word - 1;
+                    if (pattern >= 0) {
+                        if (count == ids.length) {
+                            ids = Arrays.copyOf(ids, count * 2);
+                        }
+                        ids[count++] = pattern;
+                    }
+                }
+            }
+            dfa.patterns.add(Arrays.stream(ids, 0, count).sorted().distinct().toArray());
         }
-        return dfa;
     }
 }
 
 //NFA2DFA类
 class NFA2DFA{
-    public static void main(String[] args) {
-        Scanner sc = new Scanner(System.in);
+    public static void main(String[] args) throws IOException {
         NFA nfa = new NFA();
-        nfa = nfa.buildNFA(sc);
+        if (args.length > 0) {
+            //从文件批量读入NFA，格式见NFALoader
+            nfa = NFALoader.load(Paths.get(args[0]));
+        } else {
+            Scanner sc = new Scanner(System.in);
+            nfa = nfa.buildNFA(sc);
+        }
         DFA dfa = nfa.buildDFA();
-        dfa.printDFA2();
+        if (args.length > 1) {
+            //第二个参数指定输出格式：text、dot或json
+            dfa.export(DFAExporter.Format.valueOf(args[1].toUpperCase()), DFAExporter.console());
+        } else {
+            dfa.printDFA2();
+        }
     }
 }
\ No newline at end of file
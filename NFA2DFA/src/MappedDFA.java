@@ -0,0 +1,86 @@
+//内存映射的DFA：通过FileChannel.map直接映射CompiledDFA.save保存的文件，在映射的缓冲区上运行匹配，不反序列化为对象
+//映射为只读，多个JVM打开同一个文件时共享操作系统的页缓存
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class MappedDFA extends TableDFA {
+    final IntBuffer table; //映射的转移表
+    final LongBuffer accept; //映射的终止状态位集合
+
+    private MappedDFA(String[] symbols, int stateCount, int start, IntBuffer table, LongBuffer accept) {
+        super(symbols, stateCount, start);
+        this.table = table;
+        this.accept = accept;
+    }
+
+    //映射文件并校验文件头，只读取字母表，转移表和终止状态集合留在映射的缓冲区中
+    //文件长度必须与文件头中的状态数和字符数完全一致，截断或拼接过的文件在这里报错，而不是在匹配时越界
+    public static MappedDFA open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        long size;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            if (size < CompiledDFA.HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("不是有效的DFA文件：" + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int magic = buffer.getInt();
+        int version = buffer.getInt();
+        if (magic != CompiledDFA.MAGIC) {
+            throw new IOException("不是有效的DFA文件：" + path);
+        }
+        if (version != CompiledDFA.VERSION) {
+            throw new IOException("不支持的DFA文件版本：" + version);
+        }
+        int stateCount = buffer.getInt();
+        int symbolCount = buffer.getInt();
+        int start = buffer.getInt();
+        int tableOffset = buffer.getInt();
+        int acceptOffset = buffer.getInt();
+        if (stateCount <= 0 || symbolCount < 0 || start < 0 || start >= stateCount
+                || tableOffset < CompiledDFA.HEADER_SIZE || acceptOffset < tableOffset) {
+            throw new IOException("DFA文件已损坏：" + path);
+        }
+        long tableSize = (long) stateCount * (symbolCount + 1);
+        long acceptSize = (stateCount + 63) >>> 6;
+        //转移表紧接在对齐后的字母表之后，终止状态集合紧接在对齐后的转移表之后，并且正好到文件末尾
+        if (tableOffset % 8 != 0 || acceptOffset != ((tableOffset + 4 * tableSize + 7) & ~7L)
+                || acceptOffset + 8 * acceptSize != size) {
+            throw new IOException("DFA文件已损坏：" + path + "，文件长度为" + size + "字节，与" + stateCount
+                    + "个状态、" + symbolCount + "个字符不符");
+        }
+        String[] symbols = new String[symbolCount];
+        for (int c = 0; c < symbolCount; c++) {
+            int length = buffer.position() + 4 <= tableOffset ? buffer.getInt() : -1;
+            if (length < 0 || length > tableOffset - buffer.position()) {
+                throw new IOException("DFA文件已损坏：" + path + "，字母表超出了转移表的偏移");
+            }
+            byte[] name = new byte[length];
+            buffer.get(name);
+            symbols[c] = new String(name, StandardCharsets.UTF_8);
+        }
+        IntBuffer table = buffer.slice(tableOffset, (int) (4 * tableSize)).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        LongBuffer accept = buffer.slice(acceptOffset, (int) (8 * acceptSize)).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        return new MappedDFA(symbols, stateCount, start, table, accept);
+    }
+
+    @Override
+    int transition(int state, int column) {
+        return table.get(state * width + column);
+    }
+
+    @Override
+    boolean isAccepting(int state) {
+        return (accept.get(state >>> 6) & (1L << state)) != 0;
+    }
+}
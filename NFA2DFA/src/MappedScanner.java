@@ -0,0 +1,225 @@
+//用编译后的DFA扫描文件：用FileChannel.map按窗口映射文件，直接在映射的字节上运行DFA，文件内容不复制到堆中
+//报告最左最长匹配，匹配之间不重叠，空匹配不报告；字节按ISO-8859-1解释，每个字节对应一个字符
+//所有可能开始匹配的起点同时向前推进，到达同一DFA状态的起点只保留最左的一个，DFA状态直接带过窗口边界，
+//所以从不匹配的字节只读一次；找到匹配后从匹配的结尾继续，此时匹配所在的起点在结尾之后不会再到达终止状态，
+//它在结尾之后经过的(位置, 状态)都已证明是死的，重新扫描时到达这些(位置, 状态)的起点直接丢弃
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+class MappedScanner {
+    //匹配回调：[start, end)为匹配在文件中的字节偏移，state为匹配结束时的终止状态，可以用来查找匹配的模式
+    interface MatchHandler {
+        void match(long start, long end, int state);
+    }
+
+    static final int DEFAULT_WINDOW = 1 << 26; //默认窗口大小64MB
+
+    private final CompiledDFA dfa;
+    private final int windowSize;
+    private final int[] byteColumns = new int[256]; //字节 -> 列号
+    private final boolean[] canStart = new boolean[256]; //从起始状态经由该字节不会进入死状态，其他字节处不可能开始匹配
+
+    //当前映射的窗口为文件的[base, base + limit)
+    private FileChannel channel;
+    private long size;
+    private MappedByteBuffer buffer;
+    private long base;
+    private int limit;
+
+    public MappedScanner(CompiledDFA dfa) {
+        this(dfa, DEFAULT_WINDOW);
+    }
+
+    public MappedScanner(CompiledDFA dfa, int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("窗口大小必须为正数：" + windowSize);
+        }
+        this.dfa = dfa;
+        this.windowSize = windowSize;
+        for (int b = 0; b < 256; b++) {
+            byteColumns[b] = dfa.column((char) b);
+            canStart[b] = dfa.table[dfa.start * dfa.width + byteColumns[b]] != CompiledDFA.DEAD;
+        }
+    }
+
+    //扫描整个文件，每个匹配调用一次handler，返回匹配的个数
+    //不是线程安全的，每个线程应使用自己的MappedScanner
+    public long scan(Path path, MatchHandler handler) throws IOException {
+        int[] table = dfa.table;
+        long[] accept = dfa.accept;
+        int width = dfa.width;
+        int start = dfa.start;
+        int dead = CompiledDFA.DEAD;
+        long count = 0;
+        //存活的起点按起点从左到右排列，states[t]为起点origins[t]当前所在的状态
+        int[] states = new int[Math.min(dfa.stateCount, 8)];
+        long[] origins = new long[states.length];
+        int[] seen = new int[dfa.stateCount]; //seen[state] == round表示该状态已经属于更左的起点，有两个以上的起点时有效
+        int round = 0;
+        int live = 0;
+        long matchStart = -1; //当前最左最长的候选匹配，-1表示还没有
+        long matchEnd = -1;
+        int matchState = dead;
+        int ghost = dead; //上一个匹配的起点在结尾之后的状态，与它相同的起点不会再匹配
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.channel = channel;
+            this.size = channel.size();
+            this.buffer = null;
+            this.base = 0;
+            this.limit = 0;
+            long position = 0;
+            while (true) {
+                if (live == 0 && ghost == dead && matchStart < 0) {
+                    //没有存活的起点时跳过不可能开始匹配的字节
+                    while (position < size) {
+                        int i = window(position);
+                        MappedByteBuffer window = buffer;
+                        int end = limit;
+                        while (i < end && !canStart[window.get(i) & 0xFF]) {
+                            i++;
+                        }
+                        position = base + i;
+                        if (i < end) {
+                            break;
+                        }
+                    }
+                }
+                if (position == size || (live == 0 && matchStart >= 0)) {
+                    if (matchStart < 0) {
+                        break;
+                    }
+                    //没有更左或更长的可能了：报告匹配，从匹配的结尾继续，匹配所在的起点作为ghost继续推进
+                    handler.match(matchStart, matchEnd, matchState);
+                    count++;
+                    position = matchEnd;
+                    ghost = matchState;
+                    live = 0;
+                    matchStart = -1;
+                    continue;
+                }
+                if (live <= 1) {
+                    //最多一个起点时在窗口内直接推进，直到需要同时推进两个起点、匹配可以报告、可以跳过字节或窗口结束
+                    //死状态的行全为死状态，所以死的起点和ghost也可以直接查表
+                    int state = live == 1 ? states[0] : dead;
+                    long origin = live == 1 ? origins[0] : -1;
+                    boolean split = false;
+                    int i = window(position);
+                    MappedByteBuffer window = buffer;
+                    int end = limit;
+                    while (i < end) {
+                        int b = window.get(i) & 0xFF;
+                        int column = byteColumns[b];
+                        int ghostNext = table[ghost * width + column];
+                        int next = table[state * width + column];
+                        if (next == ghostNext) {
+                            next = dead;
+                        }
+                        if (matchStart < 0 && canStart[b] && start != ghost && start != state) {
+                            int fresh = table[start * width + column];
+                            if (fresh != ghostNext && fresh != next) {
+                                if (next != dead) {
+                                    split = true;
+                                    break;
+                                }
+                                next = fresh;
+                                origin = base + i;
+                            }
+                        }
+                        ghost = ghostNext;
+                        state = next;
+                        i++;
+                        if (state == dead) {
+                            //唯一的起点死亡时匹配已经是最左最长的，结尾在窗口内时直接报告并回到结尾
+                            if (matchStart >= 0 && matchEnd >= base) {
+                                handler.match(matchStart, matchEnd, matchState);
+                                count++;
+                                i = (int) (matchEnd - base);
+                                ghost = matchState;
+                                matchStart = -1;
+                                continue;
+                            }
+                            if (matchStart >= 0 || ghost == dead) {
+                                break;
+                            }
+                            continue;
+                        }
+                        if ((accept[state >>> 6] & (1L << state)) != 0) {
+                            matchStart = origin;
+                            matchEnd = base + i;
+                            matchState = state;
+                        }
+                    }
+                    position = base + i;
+                    states[0] = state;
+                    origins[0] = origin;
+                    live = state == dead ? 0 : 1;
+                    if (!split) {
+                        continue;
+                    }
+                }
+                int i = window(position); //先映射再读buffer字段，window可能替换buffer
+                int b = buffer.get(i) & 0xFF;
+                //从position开始一个新的起点，只在该字节可能开始匹配，并且不与更左的起点或已证明是死的状态重合时加入
+                if (matchStart < 0 && canStart[b] && start != ghost
+                        && (live == 1 ? states[0] != start : live == 0 || seen[start] != round)) {
+                    if (live == states.length) {
+                        states = Arrays.copyOf(states, Math.min(dfa.stateCount, 2 * live));
+                        origins = Arrays.copyOf(origins, states.length);
+                    }
+                    states[live] = start;
+                    origins[live] = position;
+                    live++;
+                }
+                //所有起点和ghost同时读入这个字节，原地压缩掉进入死状态、与ghost重合和重复的状态
+                int column = byteColumns[b];
+                if (round == Integer.MAX_VALUE) {
+                    Arrays.fill(seen, 0);
+                    round = 0;
+                }
+                round++;
+                ghost = table[ghost * width + column];
+                int alive = 0;
+                for (int t = 0; t < live; t++) {
+                    int next = table[states[t] * width + column];
+                    if (next != dead && next != ghost && seen[next] != round) {
+                        seen[next] = round;
+                        states[alive] = next;
+                        origins[alive] = origins[t];
+                        alive++;
+                    }
+                }
+                live = alive;
+                position++;
+                //最左的处于终止状态的起点成为候选匹配（读入了字节，匹配非空），它右边的起点不可能再成为最左匹配
+                for (int t = 0; t < live; t++) {
+                    if ((accept[states[t] >>> 6] & (1L << states[t])) != 0) {
+                        matchStart = origins[t];
+                        matchEnd = position;
+                        matchState = states[t];
+                        live = t + 1;
+                        break;
+                    }
+                }
+            }
+        } finally {
+            this.channel = null;
+            this.buffer = null;
+        }
+        return count;
+    }
+
+    //保证position在当前窗口中，返回它在窗口中的下标；顺序读时每个窗口只映射一次，回到匹配结尾时从结尾重新映射
+    private int window(long position) throws IOException {
+        if (buffer == null || position < base || position >= base + limit) {
+            base = position;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(windowSize, size - base));
+            limit = buffer.limit();
+        }
+        return (int) (position - base);
+    }
+}
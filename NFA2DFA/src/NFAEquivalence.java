@@ -0,0 +1,226 @@
+//不构造完整的DFA，直接判断两个NFA的语言是否相等或包含
+//在两个子集构造的乘积上按广度优先展开状态对，子集在用到时才求出，遇到第一个反例即停止
+//等价：Hopcroft-Karp算法，用并查集合并已处理的状态对，被已有等价关系蕴含的状态对直接跳过
+//包含：反链剪枝，(X, Y)被已处理的(X', Y')覆盖（X ⊆ X'且Y' ⊆ Y）时跳过，因为从(X, Y)出发的反例也是从(X', Y')出发的反例
+//两种剪枝跳过的状态对都由深度不超过它的已处理状态对覆盖，所以广度优先找到的第一个反例就是最短的
+
+import java.util.*;
+
+class NFAEquivalence {
+    //检查结果
+    static final class Result {
+        public final boolean holds; //等价或包含是否成立
+        public final List<String> counterexample; //最短的反例，成立时为null
+        public final int pairs; //处理过的状态对个数
+        public final int subsets; //求出的子集个数
+
+        Result(boolean holds, List<String> counterexample, int pairs, int subsets) {
+            this.holds = holds;
+            this.counterexample = counterexample;
+            this.pairs = pairs;
+            this.subsets = subsets;
+        }
+
+        //反例的字符串形式，转移字符直接相连，空串为ε
+        public String word() {
+            if (counterexample == null) {
+                return null;
+            }
+            return counterexample.isEmpty() ? "ε" : String.join("", counterexample);
+        }
+    }
+
+    //一个NFA的子集构造，只求出用到的子集
+    private final class Side {
+        final NFA nfa;
+        final long[] endSet;
+        final int[] symbols; //公共字母表中的字符 -> 该NFA的字符编号，不存在时为-1
+        final HashMap<StateSet, Integer> ids = new HashMap<>(); //子集 -> 结点编号
+
+        Side(NFA nfa) {
+            this.nfa = nfa;
+            this.endSet = nfa.endSet();
+            this.symbols = new int[alphabet.size()];
+            for (int k = 0; k < symbols.length; k++) {
+                symbols[k] = nfa.symbolId(alphabet.get(k));
+            }
+        }
+
+        int intern(long[] set) {
+            StateSet key = new StateSet(set);
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = sets.size();
+                ids.put(key, id);
+                sets.add(set);
+                sides.add(this);
+                next.add(null);
+                if (key.intersects(endSet)) {
+                    accepting.set(id);
+                }
+                parent = Arrays.copyOf(parent, Math.max(parent.length, sets.size()));
+                parent[id] = id;
+            }
+            return id;
+        }
+    }
+
+    private final ArrayList<String> alphabet = new ArrayList<>(); //两个NFA字母表的并，不含ε
+    private final Side left;
+    private final Side right;
+
+    //结点为某一侧的一个子集，两侧的结点统一编号
+    private final ArrayList<long[]> sets = new ArrayList<>();
+    private final ArrayList<Side> sides = new ArrayList<>();
+    private final ArrayList<int[]> next = new ArrayList<>(); //结点经由每个字符的后继结点，用到时才求出
+    private final BitSet accepting = new BitSet();
+    private int[] parent = new int[16]; //并查集
+
+    //广度优先队列：第i个状态对为(pairLeft[i], pairRight[i])，由第from[i]个状态对经由字符symbol[i]得到
+    private int[] pairLeft = new int[16];
+    private int[] pairRight = new int[16];
+    private int[] from = new int[16];
+    private int[] symbol = new int[16];
+    private int pairCount;
+
+    private NFAEquivalence(NFA a, NFA b) {
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+        for (NFA nfa : new NFA[]{a, b}) {
+            for (int id = 0; id < nfa.symbolCount(); id++) {
+                names.add(nfa.symbolName(id));
+            }
+        }
+        names.remove(NFA.EPSILON);
+        alphabet.addAll(names);
+        left = new Side(a);
+        right = new Side(b);
+    }
+
+    //判断L(a) = L(b)
+    public static Result equivalent(NFA a, NFA b) {
+        return new NFAEquivalence(a, b).checkEquivalent();
+    }
+
+    //判断L(a) ⊆ L(b)，反例为a接受而b不接受的最短字符串
+    public static Result included(NFA a, NFA b) {
+        return new NFAEquivalence(a, b).checkIncluded();
+    }
+
+    private Result checkEquivalent() {
+        push(left.intern(left.nfa.startSet()), right.intern(right.nfa.startSet()), -1, -1);
+        int processed = 0;
+        for (int head = 0; head < pairCount; head++) {
+            int x = pairLeft[head];
+            int y = pairRight[head];
+            int rx = find(x);
+            int ry = find(y);
+            if (rx == ry) {
+                continue;
+            }
+            parent[rx] = ry;
+            processed++;
+            if (accepting.get(x) != accepting.get(y)) {
+                return new Result(false, counterexample(head), processed, sets.size());
+            }
+            for (int k = 0; k < alphabet.size(); k++) {
+                push(successor(x, k), successor(y, k), head, k);
+            }
+        }
+        return new Result(true, null, processed, sets.size());
+    }
+
+    private Result checkIncluded() {
+        push(left.intern(left.nfa.startSet()), right.intern(right.nfa.startSet()), -1, -1);
+        HashSet<Long> seen = new HashSet<>();
+        ArrayList<int[]> antichain = new ArrayList<>(); //已处理的状态对中没有被其他状态对覆盖的
+        for (int head = 0; head < pairCount; head++) {
+            int x = pairLeft[head];
+            int y = pairRight[head];
+            if (StateSet.isEmpty(sets.get(x)) || !seen.add(((long) x << 32) | y) || covered(antichain, x, y)) {
+                continue;
+            }
+            if (accepting.get(x) && !accepting.get(y)) {
+                return new Result(false, counterexample(head), seen.size(), sets.size());
+            }
+            antichain.removeIf(pair -> subset(sets.get(pair[0]), sets.get(x)) && subset(sets.get(y), sets.get(pair[1])));
+            antichain.add(new int[]{x, y});
+            for (int k = 0; k < alphabet.size(); k++) {
+                push(successor(x, k), successor(y, k), head, k);
+            }
+        }
+        return new Result(true, null, seen.size(), sets.size());
+    }
+
+    //(x, y)是否被反链中的某个状态对(x', y')覆盖：x ⊆ x'且y' ⊆ y
+    private boolean covered(ArrayList<int[]> antichain, int x, int y) {
+        long[] setX = sets.get(x);
+        long[] setY = sets.get(y);
+        for (int[] pair : antichain) {
+            if (subset(setX, sets.get(pair[0])) && subset(sets.get(pair[1]), setY)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean subset(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if ((a[i] & ~b[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //结点经由公共字母表中第k个字符的后继结点
+    private int successor(int node, int k) {
+        int[] row = next.get(node);
+        if (row == null) {
+            row = new int[alphabet.size()];
+            Arrays.fill(row, -1);
+            next.set(node, row);
+        }
+        if (row[k] < 0) {
+            Side side = sides.get(node);
+            long[] to = new long[side.nfa.wordCount()];
+            if (side.symbols[k] >= 0) {
+                side.nfa.moveClosure(sets.get(node), side.symbols[k], to);
+            }
+            row[k] = side.intern(to);
+        }
+        return row[k];
+    }
+
+    private int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private void push(int x, int y, int fromPair, int k) {
+        if (pairCount == pairLeft.length) {
+            int capacity = pairCount * 2;
+            pairLeft = Arrays.copyOf(pairLeft, capacity);
+            pairRight = Arrays.copyOf(pairRight, capacity);
+            from = Arrays.copyOf(from, capacity);
+            symbol = Arrays.copyOf(symbol, capacity);
+        }
+        pairLeft[pairCount] = x;
+        pairRight[pairCount] = y;
+        from[pairCount] = fromPair;
+        symbol[pairCount] = k;
+        pairCount++;
+    }
+
+    //沿着广度优先树回溯出到达第pair个状态对的字符串
+    private List<String> counterexample(int pair) {
+        ArrayList<String> word = new ArrayList<>();
+        for (int i = pair; from[i] >= 0; i = from[i]) {
+            word.add(alphabet.get(symbol[i]));
+        }
+        Collections.reverse(word);
+        return word;
+    }
+}
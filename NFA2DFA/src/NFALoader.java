@@ -0,0 +1,199 @@
+//从文本文件批量读入NFA，不做交互提示
+//文件格式（空行被忽略，#到行尾为注释，同一行内的记号用空白或逗号分隔，所以也可以直接读CSV）：
+//第一行：起始状态
+//第二行：所有终止状态，没有终止状态时写 -
+//之后每行一个转移函数：起点 转移字符 终点，ε转移的转移字符为 &
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+class NFALoader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int line; //当前行号
+
+    //当前行的记号：第i个记号为lineBytes[tokenStart[i], tokenEnd[i])
+    private byte[] lineBytes = new byte[256];
+    private int[] tokenStart = new int[4];
+    private int[] tokenEnd = new int[4];
+
+    private final String[] asciiSymbols = new String[128]; //单个ASCII字符的转移字符缓存，避免每行新建字符串
+    private final HashMap<String, String> symbols = new HashMap<>(); //其他转移字符的驻留表
+
+    private NFALoader(InputStream in) {
+        this.in = in;
+    }
+
+    public static NFA load(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            //按平均每个转移函数约8字节预估列表容量
+            return new NFALoader(in).read((int) Math.min(Files.size(path) / 8, Integer.MAX_VALUE - 8));
+        }
+    }
+
+    public static NFA load(InputStream in) throws IOException {
+        return new NFALoader(in).read(16);
+    }
+
+    private NFA read(int expectedTransitions) throws IOException {
+        NFA nfa = new NFA();
+        int count = nextLine();
+        if (count != 1) {
+            throw error("缺少起始状态");
+        }
+        nfa.start = parseInt(0);
+        count = nextLine();
+        if (count < 0) {
+            throw error("缺少终止状态");
+        }
+        if (!(count == 1 && tokenEnd[0] - tokenStart[0] == 1 && lineBytes[tokenStart[0]] == '-')) {
+            for (int i = 0; i < count; i++) {
+                nfa.end.add(parseInt(i));
+            }
+        }
+        //状态号用哈希集合去重，占用的内存只与不同状态的个数有关，与状态号的大小无关
+        HashSet<Integer> stateSet = new HashSet<>();
+        HashSet<String> alphabetSet = new HashSet<>();
+        ArrayList<NFATransition> transitions = new ArrayList<>(Math.max(expectedTransitions, 16));
+        while ((count = nextLine()) >= 0) {
+            if (count != 3) {
+                throw error("转移函数应为“起点 转移字符 终点”");
+            }
+            int from = parseInt(0);
+            String ch = symbol(1);
+            int to = parseInt(2);
+            transitions.add(new NFATransition(from, ch, to));
+            if (stateSet.add(from)) {
+                nfa.states.add(from);
+            }
+            if (stateSet.add(to)) {
+                nfa.states.add(to);
+            }
+            if (alphabetSet.add(ch)) {
+                nfa.alphabet.add(ch);
+            }
+        }
+        transitions.trimToSize();
+        nfa.transitions = transitions;
+        return nfa;
+    }
+
+    private int nextByte() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        //按无符号字节返回，UTF-8多字节字符的字节不小于0x80，不能与文件结束的-1混淆
+        return buffer[position++] & 0xFF;
+    }
+
+    //读入下一个非空行并切分记号，返回记号个数，文件结束时返回-1
+    private int nextLine() throws IOException {
+        while (true) {
+            int count = 0;
+            int length = 0;
+            boolean inToken = false;
+            boolean comment = false;
+            int b = nextByte();
+            if (b < 0) {
+                return -1;
+            }
+            line++;
+            while (b >= 0 && b != '\n') {
+                boolean separator = b == ' ' || b == '\t' || b == ',' || b == '\r';
+                if (b == '#') {
+                    comment = true;
+                }
+                if (comment || separator) {
+                    if (inToken) {
+                        tokenEnd[count++] = length;
+                        inToken = false;
+                    }
+                } else {
+                    if (!inToken) {
+                        if (count == tokenStart.length) {
+                            tokenStart = Arrays.copyOf(tokenStart, count * 2);
+                            tokenEnd = Arrays.copyOf(tokenEnd, count * 2);
+                        }
+                        tokenStart[count] = length;
+                        inToken = true;
+                    }
+                    if (length == lineBytes.length) {
+                        lineBytes = Arrays.copyOf(lineBytes, length * 2);
+                    }
+                    lineBytes[length++] = (byte) b;
+                }
+                b = nextByte();
+            }
+            if (inToken) {
+                tokenEnd[count++] = length;
+            }
+            if (count > 0) {
+                return count;
+            }
+            if (b < 0) {
+                return -1;
+            }
+        }
+    }
+
+    //把当前行第i个记号解析为整数
+    private int parseInt(int i) throws IOException {
+        int p = tokenStart[i];
+        int end = tokenEnd[i];
+        boolean negative = lineBytes[p] == '-';
+        if (negative || lineBytes[p] == '+') {
+            p++;
+        }
+        if (p == end) {
+            throw error("状态应为整数");
+        }
+        long value = 0;
+        for (; p < end; p++) {
+            int digit = lineBytes[p] - '0';
+            if (digit < 0 || digit > 9) {
+                throw error("状态应为整数");
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw error("状态号超出范围");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw error("状态号超出范围");
+        }
+        return (int) value;
+    }
+
+    //把当前行第i个记号作为转移字符，相同的转移字符共享同一个字符串对象
+    private String symbol(int i) {
+        int p = tokenStart[i];
+        int length = tokenEnd[i] - p;
+        if (length == 1 && lineBytes[p] >= 0) {
+            int b = lineBytes[p];
+            if (asciiSymbols[b] == null) {
+                asciiSymbols[b] = String.valueOf((char) b);
+            }
+            return asciiSymbols[b];
+        }
+        String ch = new String(lineBytes, p, length, StandardCharsets.UTF_8);
+        return symbols.computeIfAbsent(ch, s -> s);
+    }
+
+    private IOException error(String message) {
+        return new IOException("第" + line + "行：" + message);
+    }
+}
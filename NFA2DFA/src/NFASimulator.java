@@ -0,0 +1,87 @@
+//NFA模拟：不构造DFA，直接在NFA上匹配，适合对很大的NFA只测试少量输入的情况
+//活动状态集合为long[]位集合，每一步沿NFA邻接索引中活动状态经由该字符的出边转移，并入目标状态的ε闭包
+//构造时不做任何按(状态, 字符)的预计算，只求起始和终止集合；ε闭包由NFA一次性求出并缓存
+//每个字符的代价为O(m/64 + 活动状态该字符出边的二分查找和条数 + 新加入状态的ε闭包大小)，匹配过程中不分配内存
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+class NFASimulator {
+    private final NFA nfa;
+    private final int words; //位集合的long个数
+    private final int[] charSymbols; //字符 -> 字符编号
+    private final long[] startSet; //起始状态的ε闭包
+    private final long[] endSet; //终止状态集合
+    private long[] current;
+    private long[] next;
+
+    public NFASimulator(NFA nfa) {
+        this.nfa = nfa;
+        this.words = nfa.wordCount();
+        this.charSymbols = nfa.charSymbols();
+        this.startSet = nfa.startSet();
+        this.endSet = nfa.endSet();
+        this.current = new long[words];
+        this.next = new long[words];
+    }
+
+    //整个字符串是否被NFA接受
+    //不是线程安全的，每个线程应使用自己的NFASimulator
+    public boolean matches(CharSequence input) {
+        System.arraycopy(startSet, 0, current, 0, words);
+        for (int i = 0, n = input.length(); i < n; i++) {
+            if (!step(input.charAt(i))) {
+                return false;
+            }
+        }
+        return intersects(current, endSet);
+    }
+
+    //报告匹配的结束位置，返回匹配个数
+    //anchored为true时报告被接受的前缀的结束位置，否则在每个位置重新加入起始状态，报告所有被接受的子串的结束位置
+    public int matchEnds(CharSequence input, boolean anchored, IntConsumer ends) {
+        int count = 0;
+        System.arraycopy(startSet, 0, current, 0, words);
+        if (intersects(current, endSet)) {
+            ends.accept(0);
+            count++;
+        }
+        for (int i = 0, n = input.length(); i < n; i++) {
+            if (!step(input.charAt(i)) && anchored) {
+                break;
+            }
+            if (!anchored) {
+                for (int w = 0; w < words; w++) {
+                    current[w] |= startSet[w];
+                }
+            }
+            if (intersects(current, endSet)) {
+                ends.accept(i + 1);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //由current经由字符c转移到下一个活动状态集合，返回新的集合是否非空
+    private boolean step(char c) {
+        int symbol = c < charSymbols.length ? charSymbols[c] : -1;
+        long[] to = next;
+        Arrays.fill(to, 0);
+        if (symbol >= 0) {
+            nfa.moveClosure(current, symbol, to);
+        }
+        next = current;
+        current = to;
+        return !StateSet.isEmpty(to);
+    }
+
+    private static boolean intersects(long[] a, long[] b) {
+        for (int w = 0; w < a.length; w++) {
+            if ((a[w] & b[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,254 @@
+//在单个大输入上并行运行编译后的DFA：把输入切成若干块，除第一块外，每块从所有可能的状态出发推测执行，
+//得到该块的状态映射（进入状态 -> 离开状态）；再沿块的顺序依次复合映射，求出每块真正的进入状态
+//推测执行时，走到同一状态的路径从此以后完全相同，所以定期把它们合并为一条路径，大多数DFA很快就只剩几条路径
+//需要匹配位置时，第二遍从每块真正的进入状态出发并行重新运行，收集位于终止状态的位置
+//字节输入按ISO-8859-1解释，每个字节对应一个字符
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+class ParallelDFARunner {
+    private static final int MIN_CHUNK = 1 << 16; //每块最少的字符数，更短的输入串行运行
+    private static final int CHUNKS_PER_THREAD = 4; //每个线程分到的块数，用于平衡负载
+    private static final int MERGE_INTERVAL = 64; //推测执行时至少每隔这么多字符合并一次相同的路径
+
+    //按下标读取输入中字符对应的列号
+    private interface Text {
+        int length();
+
+        int column(int i);
+    }
+
+    private final CompiledDFA dfa;
+    private final ForkJoinPool pool;
+    private final int[] byteColumns = new int[256]; //字节 -> 列号
+
+    public ParallelDFARunner(CompiledDFA dfa) {
+        this(dfa, ForkJoinPool.commonPool());
+    }
+
+    public ParallelDFARunner(CompiledDFA dfa, ForkJoinPool pool) {
+        this.dfa = dfa;
+        this.pool = pool;
+        for (int b = 0; b < 256; b++) {
+            byteColumns[b] = dfa.column((char) b);
+        }
+    }
+
+    private Text chars(char[] input) {
+        CompiledDFA dfa = this.dfa;
+        return new Text() {
+            public int length() {
+                return input.length;
+            }
+
+            public int column(int i) {
+                return dfa.column(input[i]);
+            }
+        };
+    }
+
+    //字节输入为[position, limit)，下标相对于position
+    private Text bytes(ByteBuffer input) {
+        int base = input.position();
+        int length = input.remaining();
+        int[] byteColumns = this.byteColumns;
+        return new Text() {
+            public int length() {
+                return length;
+            }
+
+            public int column(int i) {
+                return byteColumns[input.get(base + i) & 0xFF];
+            }
+        };
+    }
+
+    //运行整个输入，返回最终状态
+    public int run(char[] input) {
+        return run(chars(input));
+    }
+
+    public int run(ByteBuffer input) {
+        return run(bytes(input));
+    }
+
+    //整个输入是否被DFA接受
+    public boolean matches(char[] input) {
+        return dfa.isAccepting(run(input));
+    }
+
+    public boolean matches(ByteBuffer input) {
+        return dfa.isAccepting(run(input));
+    }
+
+    //所有使前缀input[0, i)被接受的位置i（升序），包括空前缀对应的0
+    //要找出所有匹配的结束位置，可以在正则表达式前面加上(a|b|...)*，使DFA在任何位置都可以开始匹配
+    public int[] acceptPositions(char[] input) {
+        return acceptPositions(chars(input));
+    }
+
+    public int[] acceptPositions(ByteBuffer input) {
+        return acceptPositions(bytes(input));
+    }
+
+    private int run(Text text) {
+        int[] bounds = chunkBounds(text.length());
+        int chunks = bounds.length - 1;
+        if (chunks == 1) {
+            return runChunk(text, dfa.start, 0, text.length());
+        }
+        return entryStates(text, bounds)[chunks];
+    }
+
+    private int[] acceptPositions(Text text) {
+        int[] bounds = chunkBounds(text.length());
+        int chunks = bounds.length - 1;
+        int[][] positions = new int[chunks][];
+        if (chunks == 1) {
+            positions[0] = collectChunk(text, dfa.start, 0, text.length());
+        } else {
+            int[] entry = entryStates(text, bounds);
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(k ->
+                    positions[k] = collectChunk(text, entry[k], bounds[k], bounds[k + 1]))).join();
+        }
+        boolean empty = dfa.isAccepting(dfa.start);
+        int total = empty ? 1 : 0;
+        for (int[] chunk : positions) {
+            total += chunk.length;
+        }
+        int[] result = new int[total];
+        int count = 0;
+        if (empty) {
+            result[count++] = 0;
+        }
+        for (int[] chunk : positions) {
+            System.arraycopy(chunk, 0, result, count, chunk.length);
+            count += chunk.length;
+        }
+        return result;
+    }
+
+    //块的边界：第k块为[bounds[k], bounds[k + 1])
+    private int[] chunkBounds(int length) {
+        int chunks = Math.max(1, Math.min(length / MIN_CHUNK, pool.getParallelism() * CHUNKS_PER_THREAD));
+        int[] bounds = new int[chunks + 1];
+        for (int k = 0; k <= chunks; k++) {
+            bounds[k] = (int) ((long) length * k / chunks);
+        }
+        return bounds;
+    }
+
+    //每块真正的进入状态，entry[chunks]为最终状态
+    //第一块只从起始状态出发，其余各块并行求出状态映射；块数只有线程数的几倍，所以依次复合即可
+    private int[] entryStates(Text text, int[] bounds) {
+        int chunks = bounds.length - 1;
+        int[][] mappings = new int[chunks][];
+        int[] first = new int[1];
+        pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(k -> {
+            if (k == 0) {
+                first[0] = runChunk(text, dfa.start, bounds[0], bounds[1]);
+            } else {
+                mappings[k] = chunkMapping(text, bounds[k], bounds[k + 1]);
+            }
+        })).join();
+        int[] entry = new int[chunks + 1];
+        entry[0] = dfa.start;
+        entry[1] = first[0];
+        for (int k = 1; k < chunks; k++) {
+            entry[k + 1] = mappings[k][entry[k]];
+        }
+        return entry;
+    }
+
+    //从state出发运行[from, to)，返回离开时的状态
+    private int runChunk(Text text, int state, int from, int to) {
+        int[] table = dfa.table;
+        int width = dfa.width;
+        for (int i = from; i < to && state != CompiledDFA.DEAD; i++) {
+            state = table[state * width + text.column(i)];
+        }
+        return state;
+    }
+
+    //从state出发运行[from, to)，返回位于终止状态的位置
+    private int[] collectChunk(Text text, int state, int from, int to) {
+        int[] table = dfa.table;
+        int width = dfa.width;
+        int[] positions = new int[16];
+        int count = 0;
+        for (int i = from; i < to && state != CompiledDFA.DEAD; i++) {
+            state = table[state * width + text.column(i)];
+            if (dfa.isAccepting(state)) {
+                if (count == positions.length) {
+                    positions = Arrays.copyOf(positions, count * 2);
+                }
+                positions[count++] = i + 1;
+            }
+        }
+        return Arrays.copyOf(positions, count);
+    }
+
+    //推测执行[from, to)：求出从每个状态进入该块时离开的状态
+    //lane[j]为第j条路径的当前状态，laneOf[s]为从状态s出发的路径编号；走完第一个字符后立即合并一次，
+    //所以候选的进入状态实际上只剩下该字符列中出现的不同目标状态
+    private int[] chunkMapping(Text text, int from, int to) {
+        int[] table = dfa.table;
+        int width = dfa.width;
+        int n = dfa.stateCount;
+        int[] lane = new int[n];
+        int[] laneOf = new int[n];
+        int[] slot = new int[n]; //合并时状态 -> 新的路径编号，-1表示还没有路径
+        int[] remap = new int[n]; //合并时旧路径编号 -> 新路径编号
+        for (int s = 0; s < n; s++) {
+            lane[s] = s;
+            laneOf[s] = s;
+        }
+        Arrays.fill(slot, -1);
+        int lanes = n;
+        int i = from;
+        int stop = Math.min(to, from + 1);
+        while (i < to) {
+            for (; i < stop; i++) {
+                int column = text.column(i);
+                for (int j = 0; j < lanes; j++) {
+                    lane[j] = table[lane[j] * width + column];
+                }
+            }
+            if (lanes > 1) {
+                int merged = 0;
+                for (int j = 0; j < lanes; j++) {
+                    int state = lane[j];
+                    if (slot[state] < 0) {
+                        slot[state] = merged;
+                        lane[merged++] = state;
+                    }
+                    remap[j] = slot[state];
+                }
+                for (int j = 0; j < merged; j++) {
+                    slot[lane[j]] = -1;
+                }
+                if (merged < lanes) {
+                    for (int s = 0; s < n; s++) {
+                        laneOf[s] = remap[laneOf[s]];
+                    }
+                    lanes = merged;
+                }
+            }
+            if (lanes == 1) {
+                //所有路径已经汇合，剩下的部分只需运行一条路径
+                lane[0] = runChunk(text, lane[0], i, to);
+                break;
+            }
+            //合并时更新laneOf需要O(n)，路径少时相应地拉长合并间隔
+            stop = (int) Math.min(to, (long) i + Math.max(MERGE_INTERVAL, n / lanes));
+        }
+        int[] mapping = new int[n];
+        for (int s = 0; s < n; s++) {
+            mapping[s] = lane[laneOf[s]];
+        }
+        return mapping;
+    }
+}
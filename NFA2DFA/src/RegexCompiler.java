@@ -0,0 +1,230 @@
+//正则表达式前端：用Thompson构造法把正则表达式编译为NFA，ε转移用 & 表示
+//支持的语法：连接、选择 |、闭包 *、正闭包 +、可选 ?、括号分组、字符类 [abc] [a-z]、转义 \c
+//& 是ε转移字符，不能作为普通字符出现在正则表达式中
+//不支持的元字符 . ^ $ { } 和取反字符类 [^...] 会报错，而不是当作普通字符，需要匹配这些字符时用\转义
+
+import java.util.*;
+
+class RegexCompiler {
+    private final NFA nfa;
+    private final HashSet<String> alphabetSet = new HashSet<>();
+    private int nextState; //下一个新状态的状态号
+    private String regex; //正在编译的正则表达式
+    private int position; //正在编译的位置
+
+    private RegexCompiler() {
+        this.nfa = new NFA();
+    }
+
+    //Thompson构造中的NFA片段，只有一个入口状态和一个出口状态
+    private static final class Fragment {
+        final int start;
+        final int end;
+
+        Fragment(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    //把单个正则表达式编译为NFA
+    public static NFA compile(String regex) {
+        RegexCompiler compiler = new RegexCompiler();
+        Fragment fragment = compiler.parse(regex);
+        compiler.nfa.start = fragment.start;
+        compiler.nfa.end.add(fragment.end);
+        return compiler.nfa;
+    }
+
+    //把多个正则表达式合并为一个NFA：新的起始状态经由ε转移到每个模式的起始状态，
+    //第i个模式的终止状态标记为模式编号i，构造出的DFA的每个终止状态会记录它匹配的所有模式
+    public static NFA compileUnion(List<String> patterns) {
+        RegexCompiler compiler = new RegexCompiler();
+        int start = compiler.newState();
+        compiler.nfa.start = start;
+        for (int i = 0; i < patterns.size(); i++) {
+            Fragment fragment = compiler.parse(patterns.get(i));
+            compiler.addTransition(start, NFA.EPSILON, fragment.start);
+            compiler.nfa.end.add(fragment.end);
+            compiler.nfa.endPatterns.put(fragment.end, i);
+        }
+        return compiler.nfa;
+    }
+
+    private Fragment parse(String regex) {
+        this.regex = regex;
+        this.position = 0;
+        Fragment fragment = parseAlternation();
+        if (position < regex.length()) {
+            throw error("多余的 )");
+        }
+        return fragment;
+    }
+
+    //选择：连接 ('|' 连接)*
+    private Fragment parseAlternation() {
+        Fragment fragment = parseConcatenation();
+        while (position < regex.length() && regex.charAt(position) == '|') {
+            position++;
+            Fragment other = parseConcatenation();
+            int start = newState();
+            int end = newState();
+            addTransition(start, NFA.EPSILON, fragment.start);
+            addTransition(start, NFA.EPSILON, other.start);
+            addTransition(fragment.end, NFA.EPSILON, end);
+            addTransition(other.end, NFA.EPSILON, end);
+            fragment = new Fragment(start, end);
+        }
+        return fragment;
+    }
+
+    //连接：重复*，空连接对应只有一个状态的片段，即匹配空串
+    private Fragment parseConcatenation() {
+        Fragment fragment = null;
+        while (position < regex.length() && regex.charAt(position) != '|' && regex.charAt(position) != ')') {
+            Fragment next = parseRepetition();
+            if (fragment == null) {
+                fragment = next;
+            } else {
+                addTransition(fragment.end, NFA.EPSILON, next.start);
+                fragment = new Fragment(fragment.start, next.end);
+            }
+        }
+        if (fragment == null) {
+            int state = newState();
+            fragment = new Fragment(state, state);
+        }
+        return fragment;
+    }
+
+    //重复：原子 ('*' | '+' | '?')*
+    private Fragment parseRepetition() {
+        Fragment fragment = parseAtom();
+        while (position < regex.length()) {
+            char c = regex.charAt(position);
+            if (c != '*' && c != '+' && c != '?') {
+                break;
+            }
+            position++;
+            int start = newState();
+            int end = newState();
+            addTransition(start, NFA.EPSILON, fragment.start);
+            addTransition(fragment.end, NFA.EPSILON, end);
+            if (c != '+') {
+                addTransition(start, NFA.EPSILON, end);
+            }
+            if (c != '?') {
+                addTransition(fragment.end, NFA.EPSILON, fragment.start);
+            }
+            fragment = new Fragment(start, end);
+        }
+        return fragment;
+    }
+
+    //原子：'(' 选择 ')' | 字符类 | 转义字符 | 普通字符
+    private Fragment parseAtom() {
+        char c = regex.charAt(position++);
+        switch (c) {
+            case '(': {
+                Fragment fragment = parseAlternation();
+                if (position >= regex.length() || regex.charAt(position) != ')') {
+                    throw error("缺少 )");
+                }
+                position++;
+                return fragment;
+            }
+            case '[':
+                return parseClass();
+            case '*':
+            case '+':
+            case '?':
+                throw error(c + " 前面缺少表达式");
+            case '.':
+            case '^':
+            case '$':
+            case '{':
+            case '}':
+                throw error(c + " 是不支持的元字符，作为普通字符时请写作 \\" + c);
+            case '\\':
+                if (position >= regex.length()) {
+                    throw error("\\ 后面缺少字符");
+                }
+                return literal(regex.charAt(position++));
+            default:
+                return literal(c);
+        }
+    }
+
+    //字符类：[abc]、[a-z0-9]，类中的字符可以用\转义
+    private Fragment parseClass() {
+        int start = newState();
+        int end = newState();
+        boolean empty = true;
+        if (position < regex.length() && regex.charAt(position) == '^') {
+            throw error("不支持取反的字符类 [^...]，^ 作为类中的普通字符时请写作 \\^");
+        }
+        while (true) {
+            if (position >= regex.length()) {
+                throw error("缺少 ]");
+            }
+            char c = regex.charAt(position++);
+            if (c == ']' && !empty) {
+                break;
+            }
+            if (c == '\\') {
+                if (position >= regex.length()) {
+                    throw error("\\ 后面缺少字符");
+                }
+                c = regex.charAt(position++);
+            }
+            char last = c;
+            if (position + 1 < regex.length() && regex.charAt(position) == '-' && regex.charAt(position + 1) != ']') {
+                last = regex.charAt(position + 1);
+                position += 2;
+                if (last < c) {
+                    throw error("字符范围的顺序不正确：" + c + "-" + last);
+                }
+            }
+            for (char x = c; x <= last; x++) {
+                addTransition(start, symbol(x), end);
+                if (x == Character.MAX_VALUE) {
+                    break;
+                }
+            }
+            empty = false;
+        }
+        return new Fragment(start, end);
+    }
+
+    private Fragment literal(char c) {
+        int start = newState();
+        int end = newState();
+        addTransition(start, symbol(c), end);
+        return new Fragment(start, end);
+    }
+
+    private String symbol(char c) {
+        String ch = String.valueOf(c);
+        if (ch.equals(NFA.EPSILON)) {
+            throw error(NFA.EPSILON + " 是ε转移字符，不能出现在正则表达式中");
+        }
+        return ch;
+    }
+
+    private int newState() {
+        int state = nextState++;
+        nfa.states.add(state);
+        return state;
+    }
+
+    private void addTransition(int from, String ch, int to) {
+        nfa.transitions.add(new NFATransition(from, ch, to));
+        if (alphabetSet.add(ch)) {
+            nfa.alphabet.add(ch);
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("正则表达式 " + regex + " 第" + position + "个字符：" + message);
+    }
+}
@@ -0,0 +1,162 @@
+//转移表形式的DFA：状态编号为0..n-1，0为死状态，每行width列，最后一列为字母表以外的字符
+//CompiledDFA的转移表在堆上的int数组中，MappedDFA的转移表在映射的文件中，匹配循环只在这里写一份
+
+import java.util.*;
+
+abstract class TableDFA {
+    static final int DEAD = 0; //死状态，所有缺失的转移都指向它，int数组默认值即为死状态
+
+    final String[] symbols; //第c列对应的转移字符
+    final int stateCount; //状态数，包括死状态
+    final int width; //转移表每行的列数，最后一列为字母表以外的字符，总是转移到死状态
+    final int start; //起始状态
+    final int[] columnOf; //字符 -> 列号，超出数组范围的字符使用最后一列
+
+    TableDFA(String[] symbols, int stateCount, int start) {
+        this.symbols = symbols;
+        this.stateCount = stateCount;
+        this.width = symbols.length + 1;
+        this.start = start;
+        this.columnOf = buildColumns(symbols);
+    }
+
+    //只有单个字符的转移字符才能在字符串上匹配，多字符的转移字符对应的列不会被用到
+    //列号用int保存，字母表超过65535个字符时也不会溢出
+    static int[] buildColumns(String[] symbols) {
+        int max = -1;
+        for (String symbol : symbols) {
+            if (symbol.length() == 1) {
+                max = Math.max(max, symbol.charAt(0));
+            }
+        }
+        int[] columnOf = new int[max + 1];
+        Arrays.fill(columnOf, symbols.length);
+        for (int c = 0; c < symbols.length; c++) {
+            if (symbols[c].length() == 1) {
+                columnOf[symbols[c].charAt(0)] = c;
+            }
+        }
+        return columnOf;
+    }
+
+    //state经由第column列转移后的状态
+    abstract int transition(int state, int column);
+
+    abstract boolean isAccepting(int state);
+
+    //字符对应的列号
+    int column(char c) {
+        return c < columnOf.length ? columnOf[c] : width - 1;
+    }
+
+    //整个字符串是否被DFA接受
+    public boolean matches(CharSequence input) {
+        int state = start;
+        for (int i = 0, n = input.length(); i < n && state != DEAD; i++) {
+            state = transition(state, column(input.charAt(i)));
+        }
+        return isAccepting(state);
+    }
+
+    //从from开始、不超过to的最长被接受前缀的结束位置，不存在时返回-1
+    public int longestPrefix(char[] input, int from, int to) {
+        int state = start;
+        int last = isAccepting(state) ? from : -1;
+        for (int i = from; i < to; i++) {
+            state = transition(state, column(input[i]));
+            if (state == DEAD) {
+                break;
+            }
+            if (isAccepting(state)) {
+                last = i + 1;
+            }
+        }
+        return last;
+    }
+
+    //在[from, to)中查找最左最长的匹配，返回matchStart和matchEnd可以解开的位置，不存在时返回-1
+    //只向前扫描一遍：每个还可能匹配的起点对应一个DFA状态，按起点从左到右排列，
+    //到达同一状态的起点之后的转移完全相同，只保留最左的一个，所以每个字符最多推进stateCount个状态
+    //找到匹配后不再加入新的起点，更右的起点也被丢弃，只等待更左的起点或当前的匹配继续延长
+    public long find(char[] input, int from, int to) {
+        int[] states = new int[Math.min(stateCount, 8)]; //存活的起点当前所在的状态
+        int[] origins = new int[states.length]; //存活的起点，升序
+        int[] seen = null; //seen[state] == round表示该状态已经属于更左的起点，有两个以上的起点时才分配
+        int round = 0;
+        int count = 0;
+        int matchStart = -1;
+        int matchEnd = -1;
+        boolean startAccepting = isAccepting(start);
+        for (int i = from; ; i++) {
+            if (matchStart < 0) {
+                //没有存活的起点时跳过不可能开始匹配的字符
+                if (count == 0 && !startAccepting) {
+                    while (i < to && transition(start, column(input[i])) == DEAD) {
+                        i++;
+                    }
+                }
+                boolean present = count == 1 ? states[0] == start : count > 1 && seen[start] == round;
+                if (!present) {
+                    if (count == states.length) {
+                        states = Arrays.copyOf(states, Math.min(stateCount, 2 * count));
+                        origins = Arrays.copyOf(origins, states.length);
+                    }
+                    states[count] = start;
+                    origins[count] = i;
+                    count++;
+                }
+            }
+            //最左的处于终止状态的起点成为当前的匹配，它右边的起点不可能再成为最左匹配
+            for (int t = 0; t < count; t++) {
+                if (isAccepting(states[t])) {
+                    matchStart = origins[t];
+                    matchEnd = i;
+                    count = t + 1;
+                    break;
+                }
+            }
+            if (i == to) {
+                break;
+            }
+            //所有起点同时读入input[i]，原地压缩掉进入死状态和重复的状态
+            int col = column(input[i]);
+            int alive = 0;
+            if (count == 1) {
+                int next = transition(states[0], col);
+                if (next != DEAD) {
+                    states[0] = next;
+                    alive = 1;
+                }
+            } else if (count > 1) {
+                if (seen == null) {
+                    seen = new int[stateCount];
+                }
+                round++;
+                for (int t = 0; t < count; t++) {
+                    int next = transition(states[t], col);
+                    if (next != DEAD && seen[next] != round) {
+                        seen[next] = round;
+                        states[alive] = next;
+                        origins[alive] = origins[t];
+                        alive++;
+                    }
+                }
+            }
+            count = alive;
+            if (count == 0 && matchStart >= 0) {
+                break;
+            }
+        }
+        return matchStart < 0 ? -1 : ((long) matchStart << 32) | matchEnd;
+    }
+
+    //find结果中的匹配起始位置
+    public static int matchStart(long match) {
+        return (int) (match >>> 32);
+    }
+
+    //find结果中的匹配结束位置（不含）
+    public static int matchEnd(long match) {
+        return (int) match;
+    }
+}
@@ -0,0 +1,241 @@
+//基准测试的生成器和被测操作，放在默认包中以便直接使用两个实验的类
+
+import bench.Workloads;
+
+import java.util.*;
+
+public class BenchmarkWorkloads implements Workloads {
+    @Override
+    public Object randomNFA(int states, int perState, int symbols, double epsilonRatio, long seed) {
+        Random random = new Random(seed);
+        NFA nfa = new NFA();
+        nfa.start = 0;
+        for (int i = 0; i < states; i++) {
+            nfa.states.add(i);
+            if (random.nextInt(8) == 0) {
+                nfa.end.add(i);
+            }
+        }
+        for (int i = 0; i < symbols; i++) {
+            nfa.alphabet.add(String.valueOf((char) ('a' + i)));
+        }
+        nfa.alphabet.add(NFA.EPSILON);
+        for (int from = 0; from < states; from++) {
+            for (int j = 0; j < perState; j++) {
+                String ch = random.nextDouble() < epsilonRatio ? NFA.EPSILON : nfa.alphabet.get(random.nextInt(symbols));
+                nfa.transitions.add(new NFATransition(from, ch, random.nextInt(states)));
+            }
+        }
+        return nfa;
+    }
+
+    @Override
+    public Object epsilonChainNFA(int length) {
+        NFA nfa = new NFA();
+        nfa.start = 0;
+        nfa.end.add(length);
+        nfa.alphabet.add(NFA.EPSILON);
+        nfa.alphabet.add("a");
+        for (int i = 0; i <= length; i++) {
+            nfa.states.add(i);
+            if (i < length) {
+                nfa.transitions.add(new NFATransition(i, NFA.EPSILON, i + 1));
+            }
+            nfa.transitions.add(new NFATransition(i, "a", 0));
+        }
+        return nfa;
+    }
+
+    @Override
+    public Object kthFromEndNFA(int k) {
+        NFA nfa = new NFA();
+        nfa.start = 0;
+        nfa.end.add(k);
+        nfa.alphabet.add("a");
+        nfa.alphabet.add("b");
+        nfa.transitions.add(new NFATransition(0, "a", 0));
+        nfa.transitions.add(new NFATransition(0, "b", 0));
+        nfa.transitions.add(new NFATransition(0, "a", 1));
+        for (int i = 0; i <= k; i++) {
+            nfa.states.add(i);
+            if (i > 0 && i < k) {
+                nfa.transitions.add(new NFATransition(i, "a", i + 1));
+                nfa.transitions.add(new NFATransition(i, "b", i + 1));
+            }
+        }
+        return nfa;
+    }
+
+    @Override
+    public Object epsilonClosures(Object nfa) {
+        NFA n = (NFA) nfa;
+        n.buildIndex();
+        //ε转移没有变化时buildIndex会保留上一次求出的闭包，丢弃后才能测到闭包的计算
+        n.invalidateClosures();
+        return n.epsilonClosure(n.start);
+    }
+
+    @Override
+    public Object buildDFA(Object nfa) {
+        return ((NFA) nfa).buildDFA();
+    }
+
+    @Override
+    public Object minimize(Object dfa) {
+        return ((DFA) dfa).minimize();
+    }
+
+    //文法及其符号表，每次变换都在副本上进行
+    private static final class GrammarInput {
+        final SymbolTable symbols;
+        final List<Production> productions;
+        final int start;
+
+        GrammarInput(SymbolTable symbols, List<Production> productions, int start) {
+            this.symbols = symbols;
+            this.productions = productions;
+            this.start = start;
+        }
+
+        GrammarTransformer transformer() {
+            return new GrammarTransformer(new SymbolTable(symbols), productions, start);
+        }
+    }
+
+    //S -> A1 A2 ... An a，Ai -> bi | ε
+    @Override
+    public Object nullableGrammar(int nullable) {
+        SymbolTable symbols = new SymbolTable();
+        int start = symbols.nonTerminal("S");
+        List<Production> productions = new ArrayList<>();
+        int[] right = new int[nullable + 1];
+        for (int i = 0; i < nullable; i++) {
+            int symbol = symbols.nonTerminal("A" + i);
+            right[i] = symbol;
+            productions.add(new Production(symbol, new int[]{symbols.terminal("b" + i)}));
+            productions.add(new Production(symbol, new int[0]));
+        }
+        right[nullable] = symbols.terminal("a");
+        productions.add(new Production(start, right));
+        return new GrammarInput(symbols, productions, start);
+    }
+
+    //S -> A1，Ai -> Ai+1 | ti，An -> S | tn
+    @Override
+    public Object unitChainGrammar(int length) {
+        SymbolTable symbols = new SymbolTable();
+        int start = symbols.nonTerminal("S");
+        List<Production> productions = new ArrayList<>();
+        int[] chain = new int[length];
+        for (int i = 0; i < length; i++) {
+            chain[i] = symbols.nonTerminal("A" + i);
+        }
+        productions.add(new Production(start, new int[]{chain[0]}));
+        for (int i = 0; i < length; i++) {
+            int next = i + 1 < length ? chain[i + 1] : start;
+            productions.add(new Production(chain[i], new int[]{next}));
+            productions.add(new Production(chain[i], new int[]{symbols.terminal("t" + i)}));
+        }
+        return new GrammarInput(symbols, productions, start);
+    }
+
+    @Override
+    public Object removeEpsilonProductions(Object grammar) {
+        GrammarTransformer transformer = ((GrammarInput) grammar).transformer();
+        transformer.removeEpsilonProductions();
+        return transformer;
+    }
+
+    @Override
+    public Object removeUnitProductions(Object grammar) {
+        GrammarTransformer transformer = ((GrammarInput) grammar).transformer();
+        transformer.removeUnitProductions();
+        return transformer;
+    }
+
+    @Override
+    public Object bracketCYKParser() {
+        GrammarTransformer transformer = GrammarTransformer.parse(List.of("S->SS|(S)|ε"));
+        transformer.removeEpsilonProductions();
+        transformer.removeUnitProductions();
+        transformer.removeUselessSymbols();
+        transformer.toChomskyNormalForm();
+        return new CYKParser(transformer);
+    }
+
+    @Override
+    public Object bracketEarleyParser() {
+        return new EarleyParser(GrammarTransformer.parse(List.of("S->SS|(S)|ε")));
+    }
+
+    @Override
+    public Object bracketSentence(Object parser, int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sentence = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < length; i++) {
+            // 剩余的字符数不超过深度时只能闭合
+            boolean open = depth == 0 || (length - i > depth && random.nextBoolean());
+            sentence.append(open ? '(' : ')');
+            depth += open ? 1 : -1;
+        }
+        SymbolTable symbols = parser instanceof CYKParser ? ((CYKParser) parser).getSymbols() : ((EarleyParser) parser).getSymbols();
+        return symbols.tokenize(sentence.toString());
+    }
+
+    @Override
+    public boolean cykRecognize(Object parser, Object sentence) {
+        return ((CYKParser) parser).recognize((int[]) sentence);
+    }
+
+    @Override
+    public boolean earleyParse(Object parser, Object sentence) {
+        return ((EarleyParser) parser).parse((int[]) sentence);
+    }
+
+    @Override
+    public Object expressionGrammar(int levels) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < levels; i++) {
+            String next = i + 1 < levels ? "E" + (i + 1) : "P";
+            lines.add("E" + i + " -> E" + i + " o" + i + " " + next + " | " + next);
+        }
+        lines.add("P -> ( E0 ) | x");
+        return GrammarTransformer.parse(lines);
+    }
+
+    @Override
+    public Object parseTables(Object grammar) {
+        return new ParseTables((GrammarTransformer) grammar);
+    }
+
+    @Override
+    public Object expressionSentence(Object tables, int levels, int length, long seed) {
+        ParseTables parseTables = (ParseTables) tables;
+        Random random = new Random(seed);
+        StringBuilder sentence = new StringBuilder("x");
+        int depth = 0;
+        for (int i = 0; i < length; i++) {
+            sentence.append(" o").append(random.nextInt(levels));
+            // 随机插入括号，括号内的表达式从最外层重新开始
+            if (random.nextInt(4) == 0) {
+                sentence.append(" (");
+                depth++;
+            }
+            sentence.append(" x");
+            if (depth > 0 && random.nextInt(4) == 0) {
+                sentence.append(" )");
+                depth--;
+            }
+        }
+        for (; depth > 0; depth--) {
+            sentence.append(" )");
+        }
+        return parseTables.getSymbols().tokenize(sentence.toString());
+    }
+
+    @Override
+    public boolean slrParse(Object tables, Object sentence) {
+        return ((ParseTables) tables).parseSLR((int[]) sentence, null);
+    }
+}
@@ -0,0 +1,113 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GrammarTransfer各变换的吞吐量，每次调用都在文法的新副本上进行，所以包含构造GrammarTransformer的开销。
+ * 用 -prof gc 运行可以同时得到每个阶段的分配速率。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GrammarBenchmarks {
+    static final Workloads WORKLOADS = Workloads.load();
+
+    /** 开始符号的右部含大量可空符号 */
+    @State(Scope.Benchmark)
+    public static class NullableGrammar {
+        @Param({"8", "12", "1000"})
+        public int nullable;
+
+        Object grammar;
+
+        @Setup
+        public void setup() {
+            grammar = WORKLOADS.nullableGrammar(nullable);
+        }
+    }
+
+    /** 长单产生式环 */
+    @State(Scope.Benchmark)
+    public static class UnitChainGrammar {
+        @Param({"8", "24", "256"})
+        public int length;
+
+        Object grammar;
+
+        @Setup
+        public void setup() {
+            grammar = WORKLOADS.unitChainGrammar(length);
+        }
+    }
+
+    /** 括号匹配串，length为偶数 */
+    @State(Scope.Benchmark)
+    public static class BracketSentence {
+        @Param({"16", "128", "512"})
+        public int length;
+
+        Object cykParser;
+        Object earleyParser;
+        Object sentence;
+
+        @Setup
+        public void setup() {
+            cykParser = WORKLOADS.bracketCYKParser();
+            earleyParser = WORKLOADS.bracketEarleyParser();
+            // 两个分析器的文法由同一文本构造，终结符的编号相同
+            sentence = WORKLOADS.bracketSentence(cykParser, length, 42);
+        }
+    }
+
+    /** 多层左递归表达式文法及其上的随机表达式 */
+    @State(Scope.Benchmark)
+    public static class ExpressionGrammar {
+        @Param({"4", "32", "200"})
+        public int levels;
+
+        Object grammar;
+        Object tables;
+        Object sentence;
+
+        @Setup
+        public void setup() {
+            grammar = WORKLOADS.expressionGrammar(levels);
+            tables = WORKLOADS.parseTables(grammar);
+            sentence = WORKLOADS.expressionSentence(tables, levels, 1000, 42);
+        }
+    }
+
+    @Benchmark
+    public Object removeEpsilonProductions(NullableGrammar state) {
+        return WORKLOADS.removeEpsilonProductions(state.grammar);
+    }
+
+    @Benchmark
+    public Object removeUnitProductions(UnitChainGrammar state) {
+        return WORKLOADS.removeUnitProductions(state.grammar);
+    }
+
+    @Benchmark
+    public boolean cykRecognize(BracketSentence state) {
+        return WORKLOADS.cykRecognize(state.cykParser, state.sentence);
+    }
+
+    @Benchmark
+    public boolean earleyParse(BracketSentence state) {
+        return WORKLOADS.earleyParse(state.earleyParser, state.sentence);
+    }
+
+    @Benchmark
+    public Object parseTables(ExpressionGrammar state) {
+        return WORKLOADS.parseTables(state.grammar);
+    }
+
+    @Benchmark
+    public boolean slrParse(ExpressionGrammar state) {
+        return WORKLOADS.slrParse(state.tables, state.sentence);
+    }
+}
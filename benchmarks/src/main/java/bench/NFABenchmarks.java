@@ -0,0 +1,100 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NFA2DFA各阶段的吞吐量：ε闭包（含建索引）、子集构造、Hopcroft最小化。
+ * 用 -prof gc 运行可以同时得到每个阶段的分配速率。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NFABenchmarks {
+    static final Workloads WORKLOADS = Workloads.load();
+
+    /** 随机NFA */
+    @State(Scope.Benchmark)
+    public static class RandomNFA {
+        @Param({"100", "1000"})
+        public int states;
+
+        Object nfa;
+        Object dfa;
+
+        @Setup
+        public void setup() {
+            nfa = WORKLOADS.randomNFA(states, 2, 4, 0.1, 42);
+            dfa = WORKLOADS.buildDFA(nfa);
+        }
+    }
+
+    /** 长ε链，所有ε闭包的总大小是长度的平方 */
+    @State(Scope.Benchmark)
+    public static class EpsilonChain {
+        @Param({"1000", "5000"})
+        public int length;
+
+        Object nfa;
+
+        @Setup
+        public void setup() {
+            nfa = WORKLOADS.epsilonChainNFA(length);
+            WORKLOADS.epsilonClosures(nfa);
+        }
+    }
+
+    /** “倒数第k个字符是a”，子集构造的指数最坏情况 */
+    @State(Scope.Benchmark)
+    public static class KthFromEnd {
+        @Param({"10", "16"})
+        public int k;
+
+        Object nfa;
+        Object dfa;
+
+        @Setup
+        public void setup() {
+            nfa = WORKLOADS.kthFromEndNFA(k);
+            dfa = WORKLOADS.buildDFA(nfa);
+        }
+    }
+
+    @Benchmark
+    public Object randomEpsilonClosure(RandomNFA state) {
+        return WORKLOADS.epsilonClosures(state.nfa);
+    }
+
+    @Benchmark
+    public Object randomBuildDFA(RandomNFA state) {
+        return WORKLOADS.buildDFA(state.nfa);
+    }
+
+    @Benchmark
+    public Object randomMinimize(RandomNFA state) {
+        return WORKLOADS.minimize(state.dfa);
+    }
+
+    @Benchmark
+    public Object chainEpsilonClosure(EpsilonChain state) {
+        return WORKLOADS.epsilonClosures(state.nfa);
+    }
+
+    @Benchmark
+    public Object chainBuildDFA(EpsilonChain state) {
+        return WORKLOADS.buildDFA(state.nfa);
+    }
+
+    @Benchmark
+    public Object kthBuildDFA(KthFromEnd state) {
+        return WORKLOADS.buildDFA(state.nfa);
+    }
+
+    @Benchmark
+    public Object kthMinimize(KthFromEnd state) {
+        return WORKLOADS.minimize(state.dfa);
+    }
+}
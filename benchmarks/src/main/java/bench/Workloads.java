@@ -0,0 +1,74 @@
+package bench;
+
+/**
+ * 基准测试用到的生成器和被测操作。
+ * 两个实验的类都在默认包中，具名包里的JMH基准无法直接引用它们，
+ * 所以由默认包中的BenchmarkWorkloads实现本接口，基准通过接口调用，参数和返回值用Object传递。
+ */
+public interface Workloads {
+    /** 随机NFA：states个状态，每个状态perState条出边，symbols个字符，epsilonRatio比例的ε转移 */
+    Object randomNFA(int states, int perState, int symbols, double epsilonRatio, long seed);
+
+    /** ε链：0-&->1-&->...-&->length，每个状态另有一条a转移回到0 */
+    Object epsilonChainNFA(int length);
+
+    /** “倒数第k个字符是a”，子集构造后有2^k个状态 */
+    Object kthFromEndNFA(int k);
+
+    /** 重建NFA的索引并求所有ε闭包 */
+    Object epsilonClosures(Object nfa);
+
+    /** 子集构造 */
+    Object buildDFA(Object nfa);
+
+    /** Hopcroft最小化 */
+    Object minimize(Object dfa);
+
+    /** 开始符号的右部含nullable个可空非终结符的文法 */
+    Object nullableGrammar(int nullable);
+
+    /** length个非终结符组成的单产生式环 */
+    Object unitChainGrammar(int length);
+
+    /** 在文法的新副本上消除ε产生式 */
+    Object removeEpsilonProductions(Object grammar);
+
+    /** 在文法的新副本上消除单产生式 */
+    Object removeUnitProductions(Object grammar);
+
+    /** 括号匹配文法S->SS|(S)|ε转换为乔姆斯基范式后的CYK分析器 */
+    Object bracketCYKParser();
+
+    /** 括号匹配文法S->SS|(S)|ε的Earley分析器，文法不做任何变换 */
+    Object bracketEarleyParser();
+
+    /** length个字符的随机括号匹配串，已切分为分析器的终结符编号 */
+    Object bracketSentence(Object parser, int length, long seed);
+
+    /** CYK识别整个句子 */
+    boolean cykRecognize(Object parser, Object sentence);
+
+    /** Earley分析整个句子 */
+    boolean earleyParse(Object parser, Object sentence);
+
+    /** levels层左递归二元运算的表达式文法E_i->E_i o_i E_{i+1}|E_{i+1}，最内层P->(E_0)|x，是SLR文法 */
+    Object expressionGrammar(int levels);
+
+    /** 求FIRST/FOLLOW集合并构造LL(1)和SLR分析表 */
+    Object parseTables(Object grammar);
+
+    /** 含length个运算符的随机表达式，运算符取自levels层表达式文法，已切分为分析表的终结符编号 */
+    Object expressionSentence(Object tables, int levels, int length, long seed);
+
+    /** SLR分析整个句子 */
+    boolean slrParse(Object tables, Object sentence);
+
+    /** 加载默认包中的实现 */
+    static Workloads load() {
+        try {
+            return (Workloads) Class.forName("BenchmarkWorkloads").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("找不到BenchmarkWorkloads", e);
+        }
+    }
+}
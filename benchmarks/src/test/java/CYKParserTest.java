@@ -0,0 +1,113 @@
+// CYKParser的测试，按surefire的POJO约定编写：public void test*()方法，失败时抛出AssertionError
+
+import java.util.*;
+
+public class CYKParserTest {
+    // 有二义性的表达式文法，a+a*a等句子有多棵分析树
+    private static final List<String> EXPRESSION = List.of("E->E+E|E*E|(E)|a");
+
+    // 变换为乔姆斯基范式后，CYK与直接在原文法上分析的Earley对长度不超过6的所有句子给出相同的结果，
+    // 接受的句子的分析树都由范式中的产生式组成并且恰好覆盖整个句子
+    public void testAgreesWithEarley() {
+        GrammarTransformer cnf = chomskyNormalForm(EXPRESSION);
+        CYKParser cyk = new CYKParser(cnf);
+        EarleyParser earley = new EarleyParser(GrammarTransformer.parse(EXPRESSION));
+        int accepted = 0;
+        for (String sentence : sentences("a+*()", 6)) {
+            boolean expected = earley.parse(earley.getSymbols().tokenize(sentence));
+            int[] tokens = cyk.getSymbols().tokenize(sentence);
+            check(cyk.recognize(tokens) == expected, "CYK对“" + sentence + "”的结果应为" + expected);
+            CYKParser.Node tree = cyk.parse(tokens);
+            check((tree != null) == expected, "CYK对“" + sentence + "”的分析树应" + (expected ? "存在" : "不存在"));
+            if (tree != null) {
+                check(tree.symbol == cnf.getStartSymbol() && tree.start == 0 && tree.end == tokens.length,
+                        "“" + sentence + "”的分析树的根：" + tree.toString(cnf.getSymbols()));
+                checkTree(cnf, tokens, tree);
+                accepted++;
+            }
+        }
+        check(accepted >= 10, "接受的句子太少：" + accepted);
+    }
+
+    // 开始符号可空的文法：范式保留S->ε，空句子被接受，其余句子与括号是否配对一致
+    public void testBracketGrammarWithEmptySentence() {
+        CYKParser cyk = new CYKParser(chomskyNormalForm(List.of("S->SS|(S)|ε")));
+        for (String sentence : sentences("()", 10)) {
+            int depth = 0;
+            boolean balanced = true;
+            for (int i = 0; i < sentence.length() && balanced; i++) {
+                depth += sentence.charAt(i) == '(' ? 1 : -1;
+                balanced = depth >= 0;
+            }
+            balanced &= depth == 0;
+            check(cyk.recognize(cyk.getSymbols().tokenize(sentence)) == balanced, "“" + sentence + "”的结果应为" + balanced);
+        }
+    }
+
+    // 并行判断多个句子的结果与逐个判断相同
+    public void testRecognizeAllAgreesWithRecognize() {
+        CYKParser cyk = new CYKParser(chomskyNormalForm(EXPRESSION));
+        List<int[]> batch = new ArrayList<>();
+        for (String sentence : sentences("a+(", 5)) {
+            batch.add(cyk.getSymbols().tokenize(sentence));
+        }
+        boolean[] results = cyk.recognizeAll(batch);
+        for (int k = 0; k < batch.size(); k++) {
+            check(results[k] == cyk.recognize(batch.get(k)), "第" + k + "个句子的结果不同");
+        }
+    }
+
+    // 与基准测试中相同的变换顺序：先去掉ε产生式、单产生式和无用符号，再变换为乔姆斯基范式
+    private static GrammarTransformer chomskyNormalForm(List<String> lines) {
+        GrammarTransformer grammar = GrammarTransformer.parse(lines);
+        grammar.removeEpsilonProductions();
+        grammar.removeUnitProductions();
+        grammar.removeUselessSymbols();
+        grammar.toChomskyNormalForm();
+        return grammar;
+    }
+
+    // 检查分析树的每个结点都对应文法中的一个产生式，孩子恰好划分父结点的子串
+    private static void checkTree(GrammarTransformer grammar, int[] tokens, CYKParser.Node node) {
+        String where = node.toString(grammar.getSymbols());
+        if (node.right == null) {
+            CYKParser.Node leaf = node.left;
+            check(leaf != null && leaf.left == null && node.end == node.start + 1 && leaf.symbol == tokens[node.start],
+                    "叶子结点不正确：" + where);
+            check(hasProduction(grammar, node.symbol, leaf.symbol), "没有产生式：" + where);
+            return;
+        }
+        check(node.left.start == node.start && node.left.end == node.right.start && node.right.end == node.end,
+                "孩子没有划分父结点的子串：" + where);
+        check(hasProduction(grammar, node.symbol, node.left.symbol, node.right.symbol), "没有产生式：" + where);
+        checkTree(grammar, tokens, node.left);
+        checkTree(grammar, tokens, node.right);
+    }
+
+    private static boolean hasProduction(GrammarTransformer grammar, int left, int... right) {
+        for (Production production : grammar.getProductionSet()) {
+            if (production.getLeft() == left && Arrays.equals(production.getRight(), right)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 由给定字符组成的所有长度不超过maxLength的句子，包括空句子
+    private static List<String> sentences(String alphabet, int maxLength) {
+        List<String> result = new ArrayList<>();
+        result.add("");
+        for (int from = 0; result.get(from).length() < maxLength; from++) {
+            for (int c = 0; c < alphabet.length(); c++) {
+                result.add(result.get(from) + alphabet.charAt(c));
+            }
+        }
+        return result;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+//DFAMinimizer的测试，按surefire的POJO约定编写：public void test*()方法，失败时抛出AssertionError
+
+public class DFAMinimizerTest {
+    //龙书3.9节的例子：(a|b)*abb的子集构造得到5个状态，其中两个等价，最小DFA有4个状态
+    public void testDragonBookExample() {
+        DFA dfa = RegexCompiler.compile("(a|b)*abb").buildDFA();
+
+        DFAMinimizer.Result result = dfa.minimize();
+
+        check(result.statesBefore == 5, "最小化前状态数：" + result.statesBefore);
+        check(result.statesAfter == 4, "最小化后状态数：" + result.statesAfter);
+        check(result.dfa.states.size() == 4, "最小化后DFA的状态集合：" + result.dfa.states.size());
+        checkSameLanguage(dfa, result.dfa, 10);
+    }
+
+    //“倒数第3个字符是a”的最小DFA必须记住最后3个字符，恰好有2^3个状态
+    public void testKthFromEnd() {
+        DFA dfa = RegexCompiler.compile("(a|b)*a(a|b)(a|b)").buildDFA();
+
+        DFAMinimizer.Result result = dfa.minimize();
+
+        check(result.statesAfter == 8, "最小化后状态数：" + result.statesAfter);
+        checkSameLanguage(dfa, result.dfa, 10);
+    }
+
+    //部分转移函数：缺失的转移指向补上的死状态，死状态不出现在结果中
+    public void testPartialTransitions() {
+        DFA dfa = RegexCompiler.compile("(ab|ba)*").buildDFA();
+
+        DFAMinimizer.Result result = dfa.minimize();
+
+        check(result.statesAfter == 3, "最小化后状态数：" + result.statesAfter);
+        checkSameLanguage(dfa, result.dfa, 10);
+    }
+
+    //两个DFA在{a, b}上所有长度不超过maxLength的字符串上结果相同
+    private static void checkSameLanguage(DFA expected, DFA actual, int maxLength) {
+        CompiledDFA left = expected.compile();
+        CompiledDFA right = actual.compile();
+        char[] input = new char[maxLength];
+        for (int length = 0; length <= maxLength; length++) {
+            for (int bits = 0; bits < 1 << length; bits++) {
+                for (int i = 0; i < length; i++) {
+                    input[i] = (bits >>> i & 1) == 0 ? 'a' : 'b';
+                }
+                String s = new String(input, 0, length);
+                check(left.matches(s) == right.matches(s), "“" + s + "”的结果不同");
+            }
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+// EarleyParser的测试，按surefire的POJO约定编写：public void test*()方法，失败时抛出AssertionError
+
+import java.util.*;
+
+public class EarleyParserTest {
+    // 有n个运算数的a+a*a...在E->E+E|E*E|a下的分析树个数是第n - 1个Catalan数，共享分析森林应恰好表示这么多棵树
+    public void testForestCountsAllTrees() {
+        EarleyParser parser = new EarleyParser(GrammarTransformer.parse(List.of("E->E+E|E*E|a")));
+        long catalan = 1;
+        StringBuilder sentence = new StringBuilder("a");
+        for (int n = 1; n <= 10; n++) {
+            check(parser.parse(parser.getSymbols().tokenize(sentence.toString())), "应接受“" + sentence + "”");
+            EarleyParser.Forest forest = parser.forest();
+            int root = forest.root();
+            check(forest.symbol(root) == parser.getSymbols().lookup("E") && forest.start(root) == 0
+                    && forest.end(root) == 2 * n - 1, "根结点：" + forest.label(root));
+            check(countTrees(forest, root, new HashMap<>()) == catalan, "“" + sentence + "”的分析树个数应为" + catalan);
+            check(forest.isAmbiguous() == (n >= 3), "“" + sentence + "”的二义性");
+            // C(n) = C(n - 1) * 2(2n - 1) / (n + 1)
+            catalan = catalan * 2 * (2 * n - 1) / (n + 1);
+            sentence.append(n % 2 == 0 ? "+a" : "*a");
+        }
+    }
+
+    // 无二义性的文法只有一棵分析树，不属于语言的句子没有森林
+    public void testUnambiguousGrammar() {
+        EarleyParser parser = new EarleyParser(GrammarTransformer.parse(List.of("E->E+T|T", "T->T*F|F", "F->(E)|a")));
+        check(parser.parse(parser.getSymbols().tokenize("a+a*(a+a)")), "应接受“a+a*(a+a)”");
+        EarleyParser.Forest forest = parser.forest();
+        check(countTrees(forest, forest.root(), new HashMap<>()) == 1, "分析树应只有一棵");
+        check(!forest.isAmbiguous(), "文法没有二义性");
+        check(!parser.parse(parser.getSymbols().tokenize("a+*a")) && parser.forest() == null, "不应接受“a+*a”");
+    }
+
+    // 逐个输入记号时每个前缀的结果与整体分析相同，前缀不可能再扩展为句子后不再可行
+    public void testFeedAgreesWithParse() {
+        EarleyParser incremental = new EarleyParser(GrammarTransformer.parse(List.of("S->SS|(S)|ε")));
+        EarleyParser whole = new EarleyParser(GrammarTransformer.parse(List.of("S->SS|(S)|ε")));
+        String input = "(()())()))(()";
+        check(incremental.accepts(), "应接受空句子");
+        int depth = 0;
+        boolean viable = true;
+        for (int i = 0; i < input.length(); i++) {
+            int[] token = incremental.getSymbols().tokenize(input.substring(i, i + 1));
+            boolean accepted = incremental.feed(token[0]);
+            String prefix = input.substring(0, i + 1);
+            depth += input.charAt(i) == '(' ? 1 : -1;
+            viable &= depth >= 0;
+            check(accepted == whole.parse(whole.getSymbols().tokenize(prefix)), "前缀“" + prefix + "”的结果不同");
+            check(accepted == (viable && depth == 0), "前缀“" + prefix + "”的结果应为" + (viable && depth == 0));
+            check(incremental.isViable() == viable && incremental.position() == i + 1, "前缀“" + prefix + "”的可行性");
+        }
+        incremental.reset();
+        check(incremental.accepts() && incremental.position() == 0, "重置后回到空前缀");
+    }
+
+    // 结点表示的分析树个数：各打包结点的孩子的分析树个数之积的和，叶子只有一棵
+    private static long countTrees(EarleyParser.Forest forest, int node, Map<Integer, Long> memo) {
+        if (node < 0 || forest.packedFrom(node) == forest.packedTo(node)) {
+            return 1;
+        }
+        Long known = memo.get(node);
+        if (known != null) {
+            return known;
+        }
+        long count = 0;
+        for (int p = forest.packedFrom(node); p < forest.packedTo(node); p++) {
+            count += countTrees(forest, forest.left(p), memo) * countTrees(forest, forest.right(p), memo);
+        }
+        memo.put(node, count);
+        return count;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+//MappedScanner的测试，按surefire的POJO约定编写：public void test*()方法，失败时抛出AssertionError
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class MappedScannerTest {
+    //很长的一段a从不匹配a*b：每个字节只应读常数次，窗口很小时也不应反复重新映射
+    //逐个起点重新扫描到窗口末尾的实现在这里需要几十分钟
+    public void testLongRunWithoutMatch() throws IOException {
+        CompiledDFA dfa = RegexCompiler.compile("a*b").buildDFA().compile();
+        byte[] data = new byte[1 << 20];
+        Arrays.fill(data, (byte) 'a');
+        long startNanos = System.nanoTime();
+        List<long[]> matches = scan(dfa, data, 4096);
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        check(matches.isEmpty(), "不应有匹配：" + matches.size());
+        check(millis < 20_000, "扫描1MB用了" + millis + "毫秒");
+    }
+
+    //同一段a末尾加上b后，整段是一个跨越很多窗口的匹配
+    public void testLongMatchAcrossWindows() throws IOException {
+        CompiledDFA dfa = RegexCompiler.compile("a*b").buildDFA().compile();
+        byte[] data = new byte[100_001];
+        Arrays.fill(data, (byte) 'a');
+        data[data.length - 1] = 'b';
+        List<long[]> matches = scan(dfa, data, 1000);
+        check(matches.size() == 1 && matches.get(0)[0] == 0 && matches.get(0)[1] == data.length,
+                "应只有一个匹配[0, " + data.length + ")：" + describe(matches));
+    }
+
+    //随机的模式、输入和窗口大小，结果与逐个起点求最长前缀的朴素实现相同
+    public void testAgreesWithNaiveScan() throws IOException {
+        String[] patterns = {"a*b", "a|a*b", "ab|b", "(ab)*", "a+", "b?", "[ab]*c|a", "(a|b)*b(a|b)", "a*(b|c)a*"};
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            String pattern = patterns[random.nextInt(patterns.length)];
+            CompiledDFA dfa = RegexCompiler.compile(pattern).buildDFA().compile();
+            byte[] data = new byte[random.nextInt(80)];
+            int alphabet = random.nextBoolean() ? 2 : 4;
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) ('a' + random.nextInt(alphabet));
+            }
+            String input = new String(data, StandardCharsets.ISO_8859_1);
+            List<long[]> expected = naiveScan(dfa, input.toCharArray());
+            List<long[]> actual = scan(dfa, data, 1 + random.nextInt(8));
+            check(describe(expected).equals(describe(actual)),
+                    pattern + " 在 " + input + " 上：应为" + describe(expected) + "，实际为" + describe(actual));
+        }
+    }
+
+    private static List<long[]> scan(CompiledDFA dfa, byte[] data, int window) throws IOException {
+        Path path = Files.createTempFile("scanner", ".txt");
+        try {
+            Files.write(path, data);
+            List<long[]> matches = new ArrayList<>();
+            new MappedScanner(dfa, window).scan(path, (start, end, state) -> {
+                check(dfa.isAccepting(state), "报告的状态不是终止状态：" + state);
+                matches.add(new long[]{start, end});
+            });
+            return matches;
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    //在每个位置求最长的非空前缀，有则报告并跳到结尾，否则前进一个字符
+    private static List<long[]> naiveScan(CompiledDFA dfa, char[] input) {
+        List<long[]> matches = new ArrayList<>();
+        int i = 0;
+        while (i < input.length) {
+            int end = dfa.longestPrefix(input, i, input.length);
+            if (end > i) {
+                matches.add(new long[]{i, end});
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return matches;
+    }
+
+    private static String describe(List<long[]> matches) {
+        StringBuilder text = new StringBuilder();
+        for (long[] match : matches) {
+            text.append('[').append(match[0]).append(", ").append(match[1]).append(')');
+        }
+        return text.toString();
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+//NFALoader的测试，按surefire的POJO约定编写：public void test*()方法，失败时抛出AssertionError
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class NFALoaderTest {
+    //转移字符含多字节UTF-8字符时，写出再读入后NFA不变
+    public void testNonAsciiSymbolsRoundTrip() throws IOException {
+        NFA nfa = new NFA();
+        nfa.start = 0;
+        nfa.end.add(3);
+        nfa.transitions.add(new NFATransition(0, "é", 1));
+        nfa.transitions.add(new NFATransition(1, "中", 2));
+        nfa.transitions.add(new NFATransition(2, NFA.EPSILON, 3));
+        nfa.transitions.add(new NFATransition(3, "a", 0));
+        nfa.transitions.add(new NFATransition(0, "ÿ", 3));
+
+        NFA loaded = NFALoader.load(new ByteArrayInputStream(write(nfa).getBytes(StandardCharsets.UTF_8)));
+
+        check(loaded.start == nfa.start, "起始状态");
+        check(loaded.end.equals(nfa.end), "终止状态：" + loaded.end);
+        check(loaded.transitions.size() == nfa.transitions.size(), "转移函数个数：" + loaded.transitions.size());
+        for (int i = 0; i < nfa.transitions.size(); i++) {
+            NFATransition expected = nfa.transitions.get(i);
+            NFATransition actual = loaded.transitions.get(i);
+            check(actual.from == expected.from && actual.to == expected.to && actual.ch.equals(expected.ch),
+                    "第" + i + "个转移函数：" + actual.from + " " + actual.ch + " " + actual.to);
+        }
+        check(loaded.alphabet.equals(List.of("é", "中", NFA.EPSILON, "a", "ÿ")), "字母表：" + loaded.alphabet);
+        check(loaded.buildDFA().compile().matches("é中"), "读入的NFA应接受“é中”");
+    }
+
+    //很大的状态号和负状态号都只按出现顺序去重一次，不按状态号的大小分配内存
+    public void testLargeAndNegativeStateIds() throws IOException {
+        String text = "0\n2000000000\n0 a 2000000000\n-5 b 0\n2000000000 a -5\n0 a 2000000000\n";
+
+        NFA loaded = NFALoader.load(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+
+        check(loaded.states.equals(List.of(0, 2000000000, -5)), "状态集合：" + loaded.states);
+        check(loaded.transitions.size() == 4, "转移函数个数：" + loaded.transitions.size());
+        CompiledDFA dfa = loaded.buildDFA().compile();
+        check(dfa.matches("a") && dfa.matches("aaba") && !dfa.matches("ab"), "读入的NFA应接受a(aba)*");
+    }
+
+    //按NFALoader的文件格式写出NFA
+    private static String write(NFA nfa) {
+        StringBuilder text = new StringBuilder();
+        text.append(nfa.start).append('\n');
+        for (int state : nfa.end) {
+            text.append(state).append(' ');
+        }
+        text.append('\n');
+        for (NFATransition transition : nfa.transitions) {
+            text.append(transition.from).append(' ').append(transition.ch).append(' ').append(transition.to).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
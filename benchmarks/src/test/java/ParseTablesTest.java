@@ -0,0 +1,91 @@
+// ParseTables的测试，按surefire的POJO约定编写：public void test*()方法，失败时抛出AssertionError
+
+import java.util.*;
+
+public class ParseTablesTest {
+    // 左递归的表达式文法不是LL(1)文法，冲突只出现在LL(1)表中；它是SLR文法，SLR分析按归约顺序给出最右推导的逆序
+    public void testLeftRecursiveGrammarIsSLRButNotLL1() {
+        ParseTables tables = new ParseTables(GrammarTransformer.parse(List.of("E->E+T|T", "T->T*F|F", "F->(E)|a")));
+        SymbolTable symbols = tables.getSymbols();
+
+        check(!tables.isLL1() && tables.isSLR(), "应不是LL(1)文法而是SLR文法");
+        check(tables.getConflicts().size() == 4, "冲突：" + tables.getConflicts());
+        for (ParseTables.Conflict conflict : tables.getConflicts()) {
+            check(conflict.ll, "SLR表不应有冲突：" + conflict);
+        }
+        check(tables.stateCount() == 12, "LR(0)项目集个数：" + tables.stateCount());
+        check(names(symbols, tables.first(symbols.lookup("E"))).equals(Set.of("(", "a")), "FIRST(E)");
+        check(names(symbols, tables.follow(symbols.lookup("E"))).equals(Set.of("+", ")", "$")), "FOLLOW(E)");
+        check(names(symbols, tables.follow(symbols.lookup("F"))).equals(Set.of("+", "*", ")", "$")), "FOLLOW(F)");
+
+        List<String> reductions = new ArrayList<>();
+        check(tables.parseSLR(symbols.tokenize("a+a*a"), p -> reductions.add(production(tables, p))), "应接受“a+a*a”");
+        check(reductions.equals(List.of("F->a", "T->F", "E->T", "F->a", "T->F", "F->a", "T->T*F", "E->E+T")),
+                "归约顺序：" + reductions);
+        check(tables.parseSLR(symbols.tokenize("(a+a)*a"), null), "应接受“(a+a)*a”");
+        check(!tables.parseSLR(symbols.tokenize("a+"), null) && !tables.parseSLR(symbols.tokenize("(a"), null)
+                && !tables.parseSLR(symbols.tokenize("a)"), null), "不应接受不完整的句子");
+        try {
+            tables.parseLL(symbols.tokenize("a"), null);
+            throw new AssertionError("有冲突的LL(1)表不应能用来分析");
+        } catch (IllegalStateException expected) {
+            // 预期的异常
+        }
+    }
+
+    // 消除左递归后的表达式文法是LL(1)文法，LL(1)分析按展开顺序给出最左推导
+    public void testLL1Grammar() {
+        ParseTables tables = new ParseTables(GrammarTransformer.parse(List.of("E->TX", "X->+TX|ε", "T->FY", "Y->*FY|ε", "F->(E)|a")));
+        SymbolTable symbols = tables.getSymbols();
+
+        check(tables.isLL1() && tables.isSLR() && tables.getConflicts().isEmpty(), "冲突：" + tables.getConflicts());
+        check(names(symbols, tables.first(symbols.lookup("X"))).equals(Set.of("+", "$")), "FIRST(X)应含+和ε");
+        check(names(symbols, tables.follow(symbols.lookup("Y"))).equals(Set.of("+", ")", "$")), "FOLLOW(Y)");
+
+        List<String> expansions = new ArrayList<>();
+        check(tables.parseLL(symbols.tokenize("a+a"), p -> expansions.add(production(tables, p))), "应接受“a+a”");
+        check(expansions.equals(List.of("E->TX", "T->FY", "F->a", "Y->ε", "X->+TX", "T->FY", "F->a", "Y->ε", "X->ε")),
+                "展开顺序：" + expansions);
+        for (String sentence : List.of("a", "a*a+a", "(a+a)*(a)", "((a))")) {
+            int[] tokens = symbols.tokenize(sentence);
+            check(tables.parseLL(tokens, null) && tables.parseSLR(tokens, null), "应接受“" + sentence + "”");
+        }
+        for (String sentence : List.of("", "+a", "a+", "a**a", "(a", "a)", "ab")) {
+            int[] tokens = symbols.tokenize(sentence);
+            check(!tables.parseLL(tokens, null) && !tables.parseSLR(tokens, null), "不应接受“" + sentence + "”");
+        }
+    }
+
+    // 悬挂else文法既不是LL(1)文法也不是SLR文法，SLR表在遇到e时有移进-归约冲突
+    public void testDanglingElseConflicts() {
+        ParseTables tables = new ParseTables(GrammarTransformer.parse(List.of("S->iSeS|iS|a")));
+        SymbolTable symbols = tables.getSymbols();
+
+        check(!tables.isLL1() && !tables.isSLR(), "应既不是LL(1)文法也不是SLR文法");
+        boolean shiftReduce = false;
+        for (ParseTables.Conflict conflict : tables.getConflicts()) {
+            shiftReduce |= !conflict.ll && conflict.terminal == symbols.lookup("e");
+        }
+        check(shiftReduce, "SLR表应在e上有冲突：" + tables.getConflicts());
+    }
+
+    // 终结符集合的名字，输入结束符和ε（都为-1）写作$
+    private static Set<String> names(SymbolTable symbols, Set<Integer> terminals) {
+        Set<String> result = new HashSet<>();
+        for (int terminal : terminals) {
+            result.add(terminal < 0 ? "$" : symbols.name(terminal));
+        }
+        return result;
+    }
+
+    // 编号为p的产生式，写作A->α，空右部写作ε
+    private static String production(ParseTables tables, int p) {
+        return tables.getProductions()[p].toString(tables.getSymbols());
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+//RegexCompiler的测试，按surefire的POJO约定编写：public void test*()方法，失败时抛出AssertionError
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+public class RegexCompilerTest {
+    private static final String ALPHABET = "abc";
+
+    //随机正则表达式经由NFA、DFA后，在{a, b, c}上所有长度不超过5的字符串上与java.util.regex的结果相同
+    public void testAgreesWithJavaRegex() {
+        Random random = new Random(42);
+        for (int round = 0; round < 300; round++) {
+            String regex = randomRegex(random, 4);
+            CompiledDFA dfa = RegexCompiler.compile(regex).buildDFA().compile();
+            Pattern pattern = Pattern.compile(regex);
+            for (String s : strings(5)) {
+                check(dfa.matches(s) == pattern.matcher(s).matches(), regex + " 在“" + s + "”上的结果不同");
+            }
+        }
+    }
+
+    //多个模式合并后，DFA的终止状态记录的模式与逐个编译的结果一致
+    public void testUnionAgreesWithSeparatePatterns() {
+        List<String> patterns = List.of("a+b", "(a|b)*b", "[a-c]c?");
+        CompiledDFA union = RegexCompiler.compileUnion(patterns).buildDFA().compile();
+        for (String s : strings(4)) {
+            boolean any = false;
+            for (String regex : patterns) {
+                any |= Pattern.matches(regex, s);
+            }
+            check(union.matches(s) == any, "合并的模式在“" + s + "”上的结果不同");
+        }
+    }
+
+    //不支持的元字符和取反字符类报错，转义后作为普通字符
+    public void testUnsupportedMetacharacters() {
+        for (String regex : List.of("a.b", "^a", "a$", "a{2}", "a}", "[^a]", "a&b")) {
+            try {
+                RegexCompiler.compile(regex);
+                throw new AssertionError(regex + " 应当报错");
+            } catch (IllegalArgumentException expected) {
+                //预期的异常
+            }
+        }
+        CompiledDFA dfa = RegexCompiler.compile("\\.\\^\\$\\{\\}[\\^x]").buildDFA().compile();
+        check(dfa.matches(".^${}^") && dfa.matches(".^${}x") && !dfa.matches("a^${}x"), "转义的元字符应作为普通字符");
+    }
+
+    //由字符、字符类、连接、选择、* + ?和括号组成的随机正则表达式
+    private static String randomRegex(Random random, int depth) {
+        int kind = depth == 0 ? random.nextInt(2) : random.nextInt(6);
+        switch (kind) {
+            case 0:
+                return String.valueOf(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            case 1:
+                return random.nextBoolean() ? "[ab]" : "[b-c]";
+            case 2:
+                return randomRegex(random, depth - 1) + randomRegex(random, depth - 1);
+            case 3:
+                return "(" + randomRegex(random, depth - 1) + "|" + randomRegex(random, depth - 1) + ")";
+            default:
+                return "(" + randomRegex(random, depth - 1) + ")" + "*+?".charAt(random.nextInt(3));
+        }
+    }
+
+    //{a, b, c}上所有长度不超过maxLength的字符串
+    private static List<String> strings(int maxLength) {
+        List<String> result = new ArrayList<>();
+        result.add("");
+        for (int from = 0; result.get(from).length() < maxLength; from++) {
+            for (int c = 0; c < ALPHABET.length(); c++) {
+                result.add(result.get(from) + ALPHABET.charAt(c));
+            }
+        }
+        return result;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}